@@ -0,0 +1,306 @@
+package com.example;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Stroke;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Welche Objekt-IDs zu welcher Kategorie gehören, mit Zustand pro ID, Snapshot-Topic und
+ * Overlay-Farben. Kommt aus der Config (siehe DEFAULT für das Format) und ist unveränderlich;
+ * bei einer Config-Änderung wird eine neue Registry gebaut und ausgetauscht.
+ *
+ * Der Scan fragt pro Objekt nur categoryOf(id) ab, ein Array-Zugriff unabhängig davon,
+ * wie viele Kategorien es gibt.
+ */
+@Slf4j
+class CategoryRegistry
+{
+	// Lifecycle-Arten; nur Bäume und Veins werden im ObjectLifecycleTracker verfolgt
+	static final String TREE = "tree";
+	static final String VEIN = "vein";
+	static final String OBJECT = "object";
+
+	// Größte Objekt-ID, die eingetragen werden kann
+	static final int MAX_OBJECT_ID = 65535;
+
+	static final String DEFAULT =
+		"# topic; art (tree, vein, object); farbe; strichstärke; label; labelfarbe (leer = weiß); ids (id oder id=zustand)\n"
+		+ "willow_trees; tree; #00FF00; 2; ; ; 10829=full, 10831=chopped, 10833=stump\n"
+		+ "ore_veins; vein; #00FFFF; 2; vein; ; 26661=full, 26662=medium, 26663=low, 26664=depleted\n"
+		+ "hoppers; object; #00FFFF; 2; hopper; ; 26674\n"
+		+ "sacks; object; #00FFFF; 2; sack; ; 26688\n"
+		+ "broken_struts; object; #00FFFF; 2; strut; ; 26669, 26670\n"
+		+ "banks; object; #FFFF00; 3; chest; #FFFF00; 10355, 10356, 10357, 10358, 11338, 12798, 14367, 19230, 24914, 25808, "
+		+ "27254, 29085, 34752, 35647, 36786, 37474, 4483, 8981, 14382, 21301\n";
+
+	private static final CategoryRegistry DEFAULTS = parse(DEFAULT);
+
+	private final List<Category> categories;
+	private final Set<String> topics;
+	private final Map<String, Category> byTopic = new HashMap<>();
+	// Kategorie-Index + 1 pro Objekt-ID, 0 = nicht registriert
+	private final byte[] categoryById;
+	private final byte[] stateById;
+
+	private CategoryRegistry(List<Category> categories, byte[] categoryById, byte[] stateById)
+	{
+		this.categories = Collections.unmodifiableList(categories);
+		this.categoryById = categoryById;
+		this.stateById = stateById;
+
+		Set<String> names = new LinkedHashSet<>();
+		for (Category category : categories)
+		{
+			names.add(category.topic);
+			byTopic.put(category.topic, category);
+		}
+		topics = Collections.unmodifiableSet(names);
+	}
+
+	static CategoryRegistry defaults()
+	{
+		return DEFAULTS;
+	}
+
+	/**
+	 * DEFAULT mit den Farben der früheren Einstellungen: tree für die Willows, bank für die
+	 * Banken, mining für alles aus der Motherlode Mine. null behält die Farbe der Zeile.
+	 */
+	static String defaultWithColors(Color tree, Color mining, Color bank)
+	{
+		StringBuilder text = new StringBuilder();
+		for (String line : DEFAULT.split("\n"))
+		{
+			String[] fields = line.split(";", -1);
+			String topic = fields[0].trim();
+			Color color = line.startsWith("#") ? null : "willow_trees".equals(topic) ? tree : "banks".equals(topic) ? bank : mining;
+			if (color != null)
+			{
+				fields[2] = " " + formatColor(color);
+				line = String.join(";", fields);
+			}
+			text.append(line).append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Eine Kategorie pro Zeile, leere Zeilen und Zeilen mit # werden übersprungen.
+	 * Ungültige Zeilen werden geloggt und ausgelassen, der Rest gilt trotzdem.
+	 */
+	static CategoryRegistry parse(String text)
+	{
+		List<Category> categories = new ArrayList<>();
+		Map<Integer, Byte> states = new HashMap<>();
+		Map<Integer, Integer> owners = new HashMap<>();
+		Set<String> topics = new LinkedHashSet<>();
+		int maxId = -1;
+
+		String[] lines = text == null ? new String[0] : text.split("\n");
+		for (String line : lines)
+		{
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) continue;
+
+			if (categories.size() == TrackedObjects.MAX_CATEGORIES)
+			{
+				log.warn("Mehr als {} Kategorien, Rest ignoriert", TrackedObjects.MAX_CATEGORIES);
+				break;
+			}
+
+			try
+			{
+				Category category = parseLine(line, categories.size(), states, owners, topics);
+				categories.add(category);
+				for (int id : category.ids)
+				{
+					maxId = Math.max(maxId, id);
+				}
+			}
+			catch (IllegalArgumentException e)
+			{
+				log.warn("Ungültige Kategorie '{}': {}", line, e.getMessage());
+			}
+		}
+
+		byte[] categoryById = new byte[maxId + 1];
+		byte[] stateById = new byte[maxId + 1];
+		for (Map.Entry<Integer, Integer> owner : owners.entrySet())
+		{
+			categoryById[owner.getKey()] = (byte) (owner.getValue() + 1);
+			stateById[owner.getKey()] = states.get(owner.getKey());
+		}
+		return new CategoryRegistry(categories, categoryById, stateById);
+	}
+
+	private static Category parseLine(String line, int index, Map<Integer, Byte> states, Map<Integer, Integer> owners,
+		Set<String> topics)
+	{
+		String[] fields = line.split(";", -1);
+		if (fields.length != 7)
+		{
+			throw new IllegalArgumentException("erwartet 7 Felder, gefunden " + fields.length);
+		}
+
+		String topic = fields[0].trim();
+		if (topic.isEmpty() || topics.contains(topic))
+		{
+			throw new IllegalArgumentException("Topic leer oder doppelt");
+		}
+		if (Subscription.TOPICS.contains(topic))
+		{
+			throw new IllegalArgumentException("Topic " + topic + " ist reserviert");
+		}
+
+		String kind = fields[1].trim();
+		if (!TREE.equals(kind) && !VEIN.equals(kind) && !OBJECT.equals(kind))
+		{
+			throw new IllegalArgumentException("unbekannte Art " + kind);
+		}
+
+		Color color = parseColor(fields[2].trim());
+		float width = Float.parseFloat(fields[3].trim());
+		String label = fields[4].trim();
+		Color labelColor = fields[5].trim().isEmpty() ? Color.WHITE : parseColor(fields[5].trim());
+
+		// Bäume und Veins ohne angegebenen Zustand sind "unknown", andere Objekte haben keinen
+		byte defaultState = OBJECT.equals(kind) ? TrackedObjects.NONE : TrackedObjects.UNKNOWN;
+		Map<Integer, Byte> lineStates = new LinkedHashMap<>();
+		for (String part : fields[6].split(","))
+		{
+			part = part.trim();
+			if (part.isEmpty()) continue;
+
+			int eq = part.indexOf('=');
+			int id = Integer.parseInt((eq < 0 ? part : part.substring(0, eq)).trim());
+			if (id < 0 || id > MAX_OBJECT_ID)
+			{
+				throw new IllegalArgumentException("ID " + id + " außerhalb 0.." + MAX_OBJECT_ID);
+			}
+			lineStates.put(id, eq < 0 ? defaultState : TrackedObjects.stateByName(part.substring(eq + 1).trim()));
+		}
+
+		// Erst übernehmen, wenn die ganze Zeile gültig ist
+		List<Integer> ids = new ArrayList<>();
+		for (Map.Entry<Integer, Byte> entry : lineStates.entrySet())
+		{
+			Integer owner = owners.get(entry.getKey());
+			if (owner != null)
+			{
+				// Die erste Kategorie gewinnt, wie früher die Reihenfolge der isX-Abfragen im Scan
+				log.warn("ID {} ist schon in Kategorie {} eingetragen, {} ignoriert sie", entry.getKey(), owner, topic);
+				continue;
+			}
+			owners.put(entry.getKey(), index);
+			states.put(entry.getKey(), entry.getValue());
+			ids.add(entry.getKey());
+		}
+		topics.add(topic);
+
+		return new Category((byte) index, topic, kind, color, new BasicStroke(width), label, labelColor,
+			ids.stream().mapToInt(Integer::intValue).toArray());
+	}
+
+	private static String formatColor(Color color)
+	{
+		return color.getAlpha() == 255 ? String.format("#%06X", color.getRGB() & 0xFFFFFF) : String.format("#%08X", color.getRGB());
+	}
+
+	private static Color parseColor(String value)
+	{
+		String hex = value.startsWith("#") ? value.substring(1) : value;
+		if (hex.length() == 6)
+		{
+			return new Color(Integer.parseInt(hex, 16));
+		}
+		if (hex.length() == 8)
+		{
+			return new Color((int) Long.parseLong(hex, 16), true);
+		}
+		throw new IllegalArgumentException("Farbe " + value + " ist nicht #RRGGBB oder #AARRGGBB");
+	}
+
+	/**
+	 * Kategorie-Index der ID, -1 wenn sie nicht registriert ist.
+	 */
+	int categoryOf(int objectId)
+	{
+		return objectId >= 0 && objectId < categoryById.length ? categoryById[objectId] - 1 : -1;
+	}
+
+	/**
+	 * Zustand der ID, nur gültig wenn categoryOf(id) >= 0.
+	 */
+	byte stateOf(int objectId)
+	{
+		return stateById[objectId];
+	}
+
+	int size()
+	{
+		return categories.size();
+	}
+
+	Category get(int index)
+	{
+		return categories.get(index);
+	}
+
+	List<Category> getCategories()
+	{
+		return categories;
+	}
+
+	/**
+	 * Kategorie mit diesem Topic, null wenn es keine gibt.
+	 */
+	Category byTopic(String topic)
+	{
+		return byTopic.get(topic);
+	}
+
+	Set<String> getTopics()
+	{
+		return topics;
+	}
+
+	static class Category
+	{
+		final byte index;
+		final String topic;
+		final String kind;
+		final Color color;
+		final Stroke stroke;
+		// Zusatz im Overlay-Label und "type" im Snapshot, leer = keiner
+		final String label;
+		final Color labelColor;
+		final int[] ids;
+
+		Category(byte index, String topic, String kind, Color color, Stroke stroke, String label, Color labelColor, int[] ids)
+		{
+			this.index = index;
+			this.topic = topic;
+			this.kind = kind;
+			this.color = color;
+			this.stroke = stroke;
+			this.label = label;
+			this.labelColor = labelColor;
+			this.ids = ids;
+		}
+
+		boolean hasLifecycle()
+		{
+			return TREE.equals(kind) || VEIN.equals(kind);
+		}
+	}
+}
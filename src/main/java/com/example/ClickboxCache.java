@@ -0,0 +1,175 @@
+package com.example;
+
+import net.runelite.api.Client;
+import net.runelite.api.GameObject;
+import net.runelite.api.Perspective;
+import net.runelite.api.TileObject;
+import net.runelite.api.WallObject;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.awt.Shape;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Cacht projizierte Clickboxen und Anker-Punkte pro Objekt. Ein Eintrag bleibt
+ * gültig, solange sich Kamera, Viewport, Modell und Orientierung des Objekts
+ * nicht ändern; beim Despawn wird er entfernt. Nur auf dem Client-Thread benutzen.
+ */
+@Singleton
+class ClickboxCache
+{
+	private final Client client;
+
+	private final Map<TileObject, Entry> entries = new IdentityHashMap<>();
+
+	// Kamera-Fingerprint des aktuellen Frames
+	private int cameraX, cameraY, cameraZ, cameraPitch, cameraYaw, scale;
+	private int viewportX, viewportY, viewportWidth, viewportHeight;
+	private int plane;
+	private int generation;
+
+	@Inject
+	ClickboxCache(Client client)
+	{
+		this.client = client;
+	}
+
+	/**
+	 * Einmal pro Frame vor dem Zeichnen aufrufen. Hat sich die Kamera bewegt,
+	 * werden alle Einträge über die Generation auf einmal ungültig.
+	 */
+	void beginFrame()
+	{
+		int cx = client.getCameraX();
+		int cy = client.getCameraY();
+		int cz = client.getCameraZ();
+		int pitch = client.getCameraPitch();
+		int yaw = client.getCameraYaw();
+		int s = client.getScale();
+		int vx = client.getViewportXOffset();
+		int vy = client.getViewportYOffset();
+		int vw = client.getViewportWidth();
+		int vh = client.getViewportHeight();
+		int p = client.getPlane();
+
+		if (cx != cameraX || cy != cameraY || cz != cameraZ || pitch != cameraPitch || yaw != cameraYaw
+			|| s != scale || vx != viewportX || vy != viewportY || vw != viewportWidth || vh != viewportHeight
+			|| p != plane)
+		{
+			cameraX = cx;
+			cameraY = cy;
+			cameraZ = cz;
+			cameraPitch = pitch;
+			cameraYaw = yaw;
+			scale = s;
+			viewportX = vx;
+			viewportY = vy;
+			viewportWidth = vw;
+			viewportHeight = vh;
+			plane = p;
+			generation++;
+		}
+	}
+
+	net.runelite.api.Point getAnchor(TileObject object)
+	{
+		Entry entry = entry(object);
+		if (!entry.anchorValid)
+		{
+			entry.anchor = Perspective.localToCanvas(client, object.getLocalLocation(), plane);
+			entry.anchorValid = true;
+		}
+		return entry.anchor;
+	}
+
+	Shape getClickbox(TileObject object)
+	{
+		Entry entry = entry(object);
+		if (!entry.shapeValid)
+		{
+			entry.shape = object.getClickbox();
+			entry.shapeValid = true;
+		}
+		return entry.shape;
+	}
+
+	void invalidate(TileObject object)
+	{
+		entries.remove(object);
+	}
+
+	void clear()
+	{
+		entries.clear();
+	}
+
+	int size()
+	{
+		return entries.size();
+	}
+
+	private Entry entry(TileObject object)
+	{
+		Object model = modelOf(object);
+		int orientation = orientationOf(object);
+
+		Entry entry = entries.get(object);
+		if (entry == null)
+		{
+			entry = new Entry();
+			entries.put(object, entry);
+		}
+		else if (entry.generation == generation && entry.model == model && entry.orientation == orientation)
+		{
+			return entry;
+		}
+
+		entry.generation = generation;
+		entry.model = model;
+		entry.orientation = orientation;
+		entry.anchorValid = false;
+		entry.shapeValid = false;
+		entry.anchor = null;
+		entry.shape = null;
+		return entry;
+	}
+
+	private static Object modelOf(TileObject object)
+	{
+		if (object instanceof GameObject)
+		{
+			return ((GameObject) object).getRenderable();
+		}
+		if (object instanceof WallObject)
+		{
+			return ((WallObject) object).getRenderable1();
+		}
+		return null;
+	}
+
+	private static int orientationOf(TileObject object)
+	{
+		if (object instanceof GameObject)
+		{
+			return ((GameObject) object).getOrientation();
+		}
+		if (object instanceof WallObject)
+		{
+			return ((WallObject) object).getOrientationA();
+		}
+		return 0;
+	}
+
+	private static class Entry
+	{
+		int generation;
+		Object model;
+		int orientation;
+		boolean anchorValid;
+		net.runelite.api.Point anchor;
+		boolean shapeValid;
+		Shape shape;
+	}
+}
@@ -0,0 +1,46 @@
+package com.example;
+
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Inkrementeller Index aller Bodenitems, gepflegt über ItemSpawned/ItemDespawned.
+ * Mehrere gleiche Items auf einem Tile sind eigene TileItem-Instanzen, daher Identity-Map.
+ * Nur auf dem Client-Thread benutzen.
+ */
+@Singleton
+class GroundItemIndex
+{
+	private final Map<TileItem, Tile> items = new IdentityHashMap<>();
+	private final Map<TileItem, Tile> view = Collections.unmodifiableMap(items);
+
+	void add(TileItem item, Tile tile)
+	{
+		items.put(item, tile);
+	}
+
+	void remove(TileItem item)
+	{
+		items.remove(item);
+	}
+
+	void clear()
+	{
+		items.clear();
+	}
+
+	Map<TileItem, Tile> getItems()
+	{
+		return view;
+	}
+
+	int size()
+	{
+		return items.size();
+	}
+}
@@ -0,0 +1,200 @@
+package com.example;
+
+import net.runelite.api.Constants;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Regelkreis für die Arbeit pro Tick. Die Kosten der einzelnen Stufen werden gemittelt und
+ * mit dem konfigurierten Budget verglichen. Liegt der Tick mehrere Ticks in Folge darüber,
+ * wird eine Stufe abgebaut; ist längere Zeit wieder Luft, wird eine Stufe zurückgenommen.
+ *
+ * Stufen (kumulativ, die billigsten Verluste zuerst):
+ * <pre>
+ * 0  alles
+ * 1  kein logNearbyObjects, Chat und Transport-Diagnose fallen aus dem Snapshot
+ * 2  Scan-Radius 32 Tiles
+ * 3  Scan-Radius 24 Tiles, Snapshot nur jeden 2. Tick
+ * 4  Scan-Radius 16 Tiles, Snapshot nur jeden 4. Tick
+ * </pre>
+ * Nur auf dem Client-Thread benutzen.
+ */
+@Singleton
+class LoadShedder
+{
+	enum Stage
+	{
+		// Abarbeiten der Queries, im Tick und per ClientThread.invoke dazwischen
+		QUERIES("queries"),
+		DISTANCE("distance"),
+		SCAN("scan"),
+		LIFECYCLE("lifecycle"),
+		ENTITIES("entities"),
+		INVENTORY("inventory"),
+		PLAYER("player"),
+		OVERLAY("overlay"),
+		DIAGNOSTICS("diagnostics"),
+		SNAPSHOT("snapshot"),
+		BROADCAST("broadcast");
+
+		final String key;
+
+		Stage(String key)
+		{
+			this.key = key;
+		}
+	}
+
+	static final int MAX_LEVEL = 4;
+
+	private static final Stage[] STAGES = Stage.values();
+	private static final int[] SCAN_RADIUS = {Constants.SCENE_SIZE, Constants.SCENE_SIZE, 32, 24, 16};
+	private static final int[] PUBLISH_EVERY = {1, 1, 1, 2, 4};
+
+	// Ticks in Folge über Budget bzw. mit viel Luft, bevor die Stufe wechselt
+	private static final int DEGRADE_AFTER = 5;
+	private static final int RESTORE_AFTER = 20;
+	// Zurückschalten erst, wenn der Tick weniger als die Hälfte des Budgets kostet
+	private static final double RESTORE_HEADROOM = 0.5;
+	private static final double SMOOTHING = 0.25;
+
+	private final WillowFinderConfig config;
+
+	private final long[] tickNanos = new long[STAGES.length];
+	// Gleitender Mittelwert pro Tick; Ticks, in denen eine Stufe nicht läuft, zählen mit 0
+	private final double[] averageNanos = new double[STAGES.length];
+
+	private int level;
+	private int overBudgetTicks;
+	private int underBudgetTicks;
+	private double costNanos;
+	private long degradations;
+	private long restorations;
+
+	@Inject
+	LoadShedder(WillowFinderConfig config)
+	{
+		this.config = config;
+	}
+
+	void record(Stage stage, long nanos)
+	{
+		tickNanos[stage.ordinal()] += nanos;
+	}
+
+	/**
+	 * Am Ende jedes Ticks: Mittelwerte fortschreiben und gegebenenfalls die Stufe wechseln.
+	 */
+	void endTick()
+	{
+		// Stufen, die nur jeden n-ten Tick laufen, gehen so anteilig in die Kosten pro Tick ein
+		double cost = 0;
+		for (int i = 0; i < STAGES.length; i++)
+		{
+			averageNanos[i] += SMOOTHING * (tickNanos[i] - averageNanos[i]);
+			tickNanos[i] = 0;
+			cost += averageNanos[i];
+		}
+		costNanos = cost;
+
+		if (!config.enableLoadShedding())
+		{
+			level = 0;
+			overBudgetTicks = 0;
+			underBudgetTicks = 0;
+			return;
+		}
+
+		double budget = config.tickBudgetMs() * 1_000_000.0;
+		if (cost > budget)
+		{
+			underBudgetTicks = 0;
+			if (++overBudgetTicks >= DEGRADE_AFTER && level < MAX_LEVEL)
+			{
+				level++;
+				degradations++;
+				overBudgetTicks = 0;
+			}
+		}
+		else if (cost < budget * RESTORE_HEADROOM)
+		{
+			overBudgetTicks = 0;
+			if (++underBudgetTicks >= RESTORE_AFTER && level > 0)
+			{
+				level--;
+				restorations++;
+				underBudgetTicks = 0;
+			}
+		}
+		else
+		{
+			overBudgetTicks = 0;
+			underBudgetTicks = 0;
+		}
+	}
+
+	int getLevel()
+	{
+		return level;
+	}
+
+	/**
+	 * Radius in Tiles um den Spieler, in dem Objekte gescannt werden.
+	 */
+	int scanRadius()
+	{
+		return SCAN_RADIUS[level];
+	}
+
+	boolean shouldPublish(int tick)
+	{
+		return tick % PUBLISH_EVERY[level] == 0;
+	}
+
+	boolean dropLowPriority()
+	{
+		return level >= 1;
+	}
+
+	boolean skipDiagnostics()
+	{
+		return level >= 1;
+	}
+
+	void clear()
+	{
+		level = 0;
+		overBudgetTicks = 0;
+		underBudgetTicks = 0;
+		costNanos = 0;
+		for (int i = 0; i < STAGES.length; i++)
+		{
+			tickNanos[i] = 0;
+			averageNanos[i] = 0;
+		}
+	}
+
+	Map<String, Object> getMetrics()
+	{
+		Map<String, Object> stages = new HashMap<>();
+		for (int i = 0; i < STAGES.length; i++)
+		{
+			stages.put(STAGES[i].key, Math.round(averageNanos[i] / 1000.0));
+		}
+
+		Map<String, Object> m = new HashMap<>();
+		m.put("degradation_level", level);
+		m.put("max_level", MAX_LEVEL);
+		m.put("tick_cost_us", Math.round(costNanos / 1000.0));
+		m.put("tick_budget_us", config.tickBudgetMs() * 1000);
+		m.put("scan_radius", scanRadius());
+		m.put("publish_every", PUBLISH_EVERY[level]);
+		m.put("degradations", degradations);
+		m.put("restorations", restorations);
+		m.put("stage_us", stages);
+		return m;
+	}
+}
@@ -0,0 +1,45 @@
+package com.example;
+
+import net.runelite.api.NPC;
+
+import javax.inject.Singleton;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Inkrementeller Index aller NPCs in der Szene, gepflegt über NpcSpawned/NpcDespawned.
+ * Erspart den Scan von client.getNpcs() in jedem Tick. Nur auf dem Client-Thread benutzen.
+ */
+@Singleton
+class NpcIndex
+{
+	private final Set<NPC> npcs = new LinkedHashSet<>();
+	private final Collection<NPC> view = Collections.unmodifiableSet(npcs);
+
+	void add(NPC npc)
+	{
+		npcs.add(npc);
+	}
+
+	void remove(NPC npc)
+	{
+		npcs.remove(npc);
+	}
+
+	void clear()
+	{
+		npcs.clear();
+	}
+
+	Collection<NPC> getNpcs()
+	{
+		return view;
+	}
+
+	int size()
+	{
+		return npcs.size();
+	}
+}
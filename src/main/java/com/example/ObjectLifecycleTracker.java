@@ -0,0 +1,232 @@
+package com.example;
+
+import net.runelite.api.coords.WorldPoint;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merkt sich pro WorldPoint den Zustand von Bäumen und Ore Veins über Ticks hinweg.
+ * Zeichnet Zustandswechsel mit Tick-Nummer auf und führt pro Ort eine rollende
+ * Respawn-Statistik. Die Wechsel bleiben liegen, bis der nächste Snapshot gesendet ist,
+ * damit unter Last (nur jeder 2. oder 4. Tick wird gesendet) keiner verloren geht.
+ * Speicher ist begrenzt: feste Anzahl Samples pro Ort und LRU-Verdrängung über alle
+ * Orte. Nur auf dem Client-Thread benutzen.
+ */
+@Singleton
+class ObjectLifecycleTracker
+{
+	static final int MAX_LOCATIONS = 2048;
+	static final int RESPAWN_SAMPLES = 8;
+
+	private final Map<Integer, Location> locations = new LinkedHashMap<Integer, Location>(256, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Location> eldest)
+		{
+			return size() > MAX_LOCATIONS;
+		}
+	};
+
+	// Wechsel seit dem letzten gesendeten Snapshot, wird in clearTransitions() geleert
+	private final List<Transition> transitions = new ArrayList<>();
+	private final List<Transition> transitionsView = Collections.unmodifiableList(transitions);
+	// Index des ersten Wechsels im aktuellen Tick
+	private int tickStart;
+
+	void beginTick()
+	{
+		tickStart = transitions.size();
+	}
+
+	/**
+	 * Meldet den aktuellen Zustand eines Objekts. Liefert den (ggf. neuen) Eintrag des Orts.
+	 */
+	Location observe(WorldPoint worldPoint, String kind, String state, int tick)
+	{
+		return observe(worldPoint.getX(), worldPoint.getY(), worldPoint.getPlane(), kind, state, tick);
+	}
+
+	/**
+	 * Wie observe(WorldPoint, ...), legt einen WorldPoint aber nur für neue Orte an.
+	 */
+	Location observe(int x, int y, int plane, String kind, String state, int tick)
+	{
+		int key = pack(x, y, plane);
+		Location location = locations.get(key);
+		if (location == null)
+		{
+			location = new Location(new WorldPoint(x, y, plane), kind, state, tick);
+			locations.put(key, location);
+			return location;
+		}
+
+		// Lücke in der Beobachtung (Region verlassen o.ä.) -> Startzeit nicht mehr exakt
+		if (location.lastSeenTick < tick - 1)
+		{
+			location.sinceExact = false;
+		}
+		location.lastSeenTick = tick;
+
+		if (!location.state.equals(state))
+		{
+			String from = location.state;
+			if (isDepleted(from) && location.sinceExact)
+			{
+				location.addRespawnSample(tick - location.sinceTick);
+			}
+
+			location.state = state;
+			location.sinceTick = tick;
+			location.sinceExact = true;
+			transitions.add(new Transition(location.worldPoint, kind, from, state, tick));
+		}
+		return location;
+	}
+
+	Location get(WorldPoint worldPoint)
+	{
+		return get(worldPoint.getX(), worldPoint.getY(), worldPoint.getPlane());
+	}
+
+	Location get(int x, int y, int plane)
+	{
+		return locations.get(pack(x, y, plane));
+	}
+
+	/**
+	 * Alle Wechsel seit dem letzten clearTransitions(), auch die nicht gesendeter Ticks.
+	 */
+	List<Transition> getTransitions()
+	{
+		return transitionsView;
+	}
+
+	/**
+	 * Index in getTransitions(), ab dem die Wechsel des aktuellen Ticks stehen.
+	 */
+	int getTickStart()
+	{
+		return tickStart;
+	}
+
+	/**
+	 * Nach dem Senden eines Snapshots aufrufen, wie PlayerState.takeDelta().
+	 */
+	void clearTransitions()
+	{
+		transitions.clear();
+		tickStart = 0;
+	}
+
+	void clear()
+	{
+		locations.clear();
+		clearTransitions();
+	}
+
+	int size()
+	{
+		return locations.size();
+	}
+
+	static boolean isDepleted(String state)
+	{
+		return "stump".equals(state) || "depleted".equals(state);
+	}
+
+	// x/y passen in je 15 Bit, plane in 2 Bit
+	private static int pack(int x, int y, int plane)
+	{
+		return (x & 0x7FFF) << 17 | (y & 0x7FFF) << 2 | (plane & 0x3);
+	}
+
+	static class Location
+	{
+		final WorldPoint worldPoint;
+		final String kind;
+		String state;
+		int sinceTick;
+		boolean sinceExact;
+		int lastSeenTick;
+
+		// Ringpuffer der letzten Respawn-Dauern in Ticks
+		private final int[] respawnTicks = new int[RESPAWN_SAMPLES];
+		private int respawnCount;
+		private int respawnNext;
+		private long respawnSum;
+
+		Location(WorldPoint worldPoint, String kind, String state, int tick)
+		{
+			this.worldPoint = worldPoint;
+			this.kind = kind;
+			this.state = state;
+			this.sinceTick = tick;
+			this.lastSeenTick = tick;
+		}
+
+		private void addRespawnSample(int ticks)
+		{
+			if (respawnCount == RESPAWN_SAMPLES)
+			{
+				respawnSum -= respawnTicks[respawnNext];
+			}
+			else
+			{
+				respawnCount++;
+			}
+			respawnTicks[respawnNext] = ticks;
+			respawnSum += ticks;
+			respawnNext = (respawnNext + 1) % RESPAWN_SAMPLES;
+		}
+
+		int ticksInState(int tick)
+		{
+			return tick - sinceTick;
+		}
+
+		int getRespawnSamples()
+		{
+			return respawnCount;
+		}
+
+		/**
+		 * Durchschnittliche Respawn-Dauer in Ticks, -1 ohne Samples.
+		 */
+		int meanRespawnTicks()
+		{
+			return respawnCount == 0 ? -1 : (int) (respawnSum / respawnCount);
+		}
+
+		/**
+		 * Geschätzte Ticks bis zum Respawn, -1 wenn nicht abgebaut oder keine Daten.
+		 */
+		int predictedRespawnTicks(int tick)
+		{
+			if (!isDepleted(state) || !sinceExact || respawnCount == 0) return -1;
+			return Math.max(0, meanRespawnTicks() - ticksInState(tick));
+		}
+	}
+
+	static class Transition
+	{
+		final WorldPoint worldPoint;
+		final String kind;
+		final String from;
+		final String to;
+		final int tick;
+
+		Transition(WorldPoint worldPoint, String kind, String from, String to, int tick)
+		{
+			this.worldPoint = worldPoint;
+			this.kind = kind;
+			this.from = from;
+			this.to = to;
+			this.tick = tick;
+		}
+	}
+}
@@ -0,0 +1,477 @@
+package com.example;
+
+import net.runelite.api.Actor;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.StatChanged;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetInfo;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Zustand des lokalen Spielers für den Snapshot. Skills, Animation und Ziel kommen aus
+ * Events, nur Position, Energie, Pose, Ziel-HP und Interfaces werden pro Tick verglichen.
+ * Jede Änderung setzt ein Bit in der Dirty-Maske; die Player-Map wird nur neu gebaut,
+ * wenn sich etwas geändert hat, und takeDelta() liefert nur die geänderten Felder.
+ *
+ * Nur auf dem Client-Thread benutzen.
+ */
+@Singleton
+class PlayerState
+{
+	// Dirty-Bits, je Bit eine Gruppe von Feldern im Snapshot
+	static final int POSITION = 1;
+	static final int HEALTH = 1 << 1;
+	static final int PRAYER = 1 << 2;
+	static final int RUN_ENERGY = 1 << 3;
+	static final int WOODCUTTING = 1 << 4;
+	static final int ANIMATION = 1 << 5;
+	static final int MOVING = 1 << 6;
+	static final int INTERACTING = 1 << 7;
+	static final int INTERFACES = 1 << 8;
+	static final int DIALOG = 1 << 9;
+	static final int ALL = (1 << 10) - 1;
+
+	// Animation ID -> Aktivität; nur im static-Block befüllt, danach nur gelesen
+	private static final String[] ACTIVITIES = new String[1 << 15];
+
+	static
+	{
+		register("woodcutting", 867, 2846, 870, 875, 10251);
+		register("fishing", 621, 622, 623, 618);
+		register("mining", 896, 7282);
+		register("combat", 422, 423, 401, 711, 426);
+		register("cooking", 832);
+		register("crafting", 713);
+		register("smithing", 8980);
+	}
+
+	private final Client client;
+
+	private boolean initialized;
+	private int pending;
+	private Map<String, Object> map = Collections.emptyMap();
+	private boolean mapStale = true;
+
+	private int x;
+	private int y;
+	private int plane;
+	private int health;
+	private int maxHealth;
+	private int prayer;
+	private int runEnergy;
+	private int woodcuttingLevel;
+	private int animationId = -1;
+	// Name zu animationId, nur bei Wechseln neu bestimmt
+	private String activity = activity(-1);
+	private boolean moving;
+	private Actor interacting;
+	private String interactingName;
+	private int interactingHealthRatio;
+	private int interactingHealthScale;
+	private boolean inBank;
+	private boolean inDialog;
+	private boolean inShop;
+	private String dialogText;
+
+	@Inject
+	PlayerState(Client client)
+	{
+		this.client = client;
+	}
+
+	private static void register(String activity, int... animationIds)
+	{
+		for (int id : animationIds)
+		{
+			ACTIVITIES[id] = activity;
+		}
+	}
+
+	static String activity(int animationId)
+	{
+		if (animationId == -1)
+		{
+			return "idle";
+		}
+		String activity = animationId >= 0 && animationId < ACTIVITIES.length ? ACTIVITIES[animationId] : null;
+		return activity != null ? activity : "unknown_" + animationId;
+	}
+
+	void onStatChanged(StatChanged event)
+	{
+		Skill skill = event.getSkill();
+		if (skill == Skill.HITPOINTS)
+		{
+			setHealth(event.getBoostedLevel(), event.getLevel());
+		}
+		else if (skill == Skill.PRAYER)
+		{
+			setPrayer(event.getBoostedLevel());
+		}
+		else if (skill == Skill.WOODCUTTING)
+		{
+			setWoodcuttingLevel(event.getLevel());
+		}
+	}
+
+	void onAnimationChanged(Actor actor)
+	{
+		if (actor == null || actor != client.getLocalPlayer()) return;
+		setAnimation(actor.getAnimation());
+	}
+
+	void onInteractingChanged(Actor source, Actor target)
+	{
+		if (source == null || source != client.getLocalPlayer()) return;
+		setInteracting(target);
+	}
+
+	/**
+	 * Einmal pro Tick: nur die Werte ohne passendes Event vergleichen.
+	 */
+	void update()
+	{
+		Player player = client.getLocalPlayer();
+		if (player == null) return;
+
+		if (!initialized)
+		{
+			// Plugin im eingeloggten Zustand gestartet oder nach Login: alles einmal lesen
+			setHealth(client.getBoostedSkillLevel(Skill.HITPOINTS), client.getRealSkillLevel(Skill.HITPOINTS));
+			setPrayer(client.getBoostedSkillLevel(Skill.PRAYER));
+			setWoodcuttingLevel(client.getRealSkillLevel(Skill.WOODCUTTING));
+			setAnimation(player.getAnimation());
+			setInteracting(player.getInteracting());
+			pending = ALL;
+			mapStale = true;
+			initialized = true;
+		}
+
+		WorldPoint position = player.getWorldLocation();
+		if (position.getX() != x || position.getY() != y || position.getPlane() != plane)
+		{
+			x = position.getX();
+			y = position.getY();
+			plane = position.getPlane();
+			mark(POSITION);
+		}
+
+		int energy = client.getEnergy() / 100;
+		if (energy != runEnergy)
+		{
+			runEnergy = energy;
+			mark(RUN_ENERGY);
+		}
+
+		boolean isMoving = player.getIdlePoseAnimation() != player.getPoseAnimation();
+		if (isMoving != moving)
+		{
+			moving = isMoving;
+			mark(MOVING);
+		}
+
+		// HP des Ziels ändert sich ohne eigenes Event
+		if (interacting != null
+			&& (interacting.getHealthRatio() != interactingHealthRatio || interacting.getHealthScale() != interactingHealthScale))
+		{
+			interactingHealthRatio = interacting.getHealthRatio();
+			interactingHealthScale = interacting.getHealthScale();
+			mark(INTERACTING);
+		}
+
+		boolean bank = isBankOpen(client);
+		boolean dialog = isDialogOpen();
+		boolean shop = isShopOpen();
+		if (bank != inBank || dialog != inDialog || shop != inShop)
+		{
+			inBank = bank;
+			inDialog = dialog;
+			inShop = shop;
+			mark(INTERFACES);
+		}
+
+		String text = dialog ? getDialogText() : null;
+		if (!Objects.equals(text, dialogText))
+		{
+			dialogText = text;
+			mark(DIALOG);
+		}
+	}
+
+	/**
+	 * Beim Logout/Weltwechsel: beim nächsten Tick wird alles neu gelesen.
+	 */
+	void reset()
+	{
+		initialized = false;
+		interacting = null;
+		interactingName = null;
+		dialogText = null;
+		pending = 0;
+		map = Collections.emptyMap();
+		mapStale = true;
+	}
+
+	int getDirty()
+	{
+		return pending;
+	}
+
+	/**
+	 * Vollständige Player-Map. Wird nur nach Änderungen neu gebaut und danach nicht mehr verändert,
+	 * kann also über mehrere Snapshots geteilt werden.
+	 */
+	Map<String, Object> toMap()
+	{
+		if (mapStale)
+		{
+			Map<String, Object> m = new HashMap<>();
+			put(m, ALL);
+			map = Collections.unmodifiableMap(m);
+			mapStale = false;
+		}
+		return map;
+	}
+
+	/**
+	 * Nur die Felder, die sich seit dem letzten Aufruf geändert haben, oder null. Felder, die dabei
+	 * weggefallen sind (z.B. kein Ziel mehr), stehen unter "cleared", weil null-Werte nicht serialisiert werden.
+	 */
+	Map<String, Object> takeDelta()
+	{
+		if (pending == 0) return null;
+
+		Map<String, Object> m = new HashMap<>();
+		put(m, pending);
+		pending = 0;
+		return m;
+	}
+
+	private void put(Map<String, Object> m, int fields)
+	{
+		List<String> cleared = null;
+
+		if ((fields & POSITION) != 0)
+		{
+			m.put("x", x);
+			m.put("y", y);
+			m.put("plane", plane);
+		}
+		if ((fields & HEALTH) != 0)
+		{
+			m.put("health", health);
+			m.put("max_health", maxHealth);
+		}
+		if ((fields & PRAYER) != 0)
+		{
+			m.put("prayer", prayer);
+		}
+		if ((fields & RUN_ENERGY) != 0)
+		{
+			m.put("run_energy", runEnergy);
+		}
+		if ((fields & WOODCUTTING) != 0)
+		{
+			m.put("woodcutting_level", woodcuttingLevel);
+		}
+		if ((fields & ANIMATION) != 0)
+		{
+			m.put("animation_id", animationId);
+			m.put("activity", activity);
+			m.put("is_idle", animationId == -1);
+		}
+		if ((fields & MOVING) != 0)
+		{
+			m.put("is_moving", moving);
+		}
+		if ((fields & INTERACTING) != 0)
+		{
+			if (interacting != null)
+			{
+				m.put("interacting_with", interactingName);
+
+				Map<String, Object> interactData = new HashMap<>();
+				interactData.put("name", interactingName);
+				interactData.put("type", interacting instanceof NPC ? "npc" : "player");
+				interactData.put("health_ratio", interactingHealthRatio);
+				interactData.put("health_scale", interactingHealthScale);
+				if (interacting instanceof NPC)
+				{
+					NPC npc = (NPC) interacting;
+					interactData.put("npc_id", npc.getId());
+					interactData.put("combat_level", npc.getCombatLevel());
+				}
+				m.put("interaction_details", interactData);
+			}
+			else
+			{
+				cleared = new ArrayList<>();
+				cleared.add("interacting_with");
+				cleared.add("interaction_details");
+			}
+		}
+		if ((fields & INTERFACES) != 0)
+		{
+			m.put("in_bank", inBank);
+			m.put("in_dialog", inDialog);
+			m.put("in_shop", inShop);
+		}
+		if ((fields & DIALOG) != 0)
+		{
+			if (dialogText != null)
+			{
+				m.put("dialog_text", dialogText);
+			}
+			else
+			{
+				if (cleared == null) cleared = new ArrayList<>();
+				cleared.add("dialog_text");
+			}
+		}
+
+		// Nur für Deltas relevant, in der vollständigen Map fehlen diese Felder einfach
+		if (cleared != null && fields != ALL)
+		{
+			m.put("cleared", cleared);
+		}
+	}
+
+	private void mark(int bit)
+	{
+		pending |= bit;
+		mapStale = true;
+	}
+
+	private void setHealth(int boosted, int real)
+	{
+		if (boosted != health || real != maxHealth)
+		{
+			health = boosted;
+			maxHealth = real;
+			mark(HEALTH);
+		}
+	}
+
+	private void setPrayer(int boosted)
+	{
+		if (boosted != prayer)
+		{
+			prayer = boosted;
+			mark(PRAYER);
+		}
+	}
+
+	private void setWoodcuttingLevel(int level)
+	{
+		if (level != woodcuttingLevel)
+		{
+			woodcuttingLevel = level;
+			mark(WOODCUTTING);
+		}
+	}
+
+	private void setAnimation(int animation)
+	{
+		if (animation != animationId)
+		{
+			animationId = animation;
+			activity = activity(animation);
+			mark(ANIMATION);
+		}
+	}
+
+	private void setInteracting(Actor target)
+	{
+		if (target == interacting) return;
+
+		interacting = target;
+		interactingName = target != null ? target.getName() : null;
+		interactingHealthRatio = target != null ? target.getHealthRatio() : 0;
+		interactingHealthScale = target != null ? target.getHealthScale() : 0;
+		mark(INTERACTING);
+	}
+
+	/**
+	 * Bank-Interface sichtbar? Den Bank-Container behält der Client nach dem Schließen im
+	 * Cache, der taugt dafür nicht.
+	 */
+	static boolean isBankOpen(Client client)
+	{
+		return isVisible(client.getWidget(WidgetInfo.BANK_ITEM_CONTAINER));
+	}
+
+	private boolean isDialogOpen()
+	{
+		return isVisible(client.getWidget(WidgetInfo.DIALOG_NPC_TEXT))
+			|| isVisible(client.getWidget(WidgetInfo.DIALOG_PLAYER_TEXT))
+			|| isVisible(client.getWidget(WidgetInfo.DIALOG_OPTION));
+	}
+
+	private boolean isShopOpen()
+	{
+		// Shop Widget ID: 300,75 oder 300,76
+		Widget shopWidget = client.getWidget(300, 75);
+		if (shopWidget == null)
+		{
+			shopWidget = client.getWidget(300, 76);
+		}
+		return isVisible(shopWidget);
+	}
+
+	private static boolean isVisible(Widget widget)
+	{
+		return widget != null && !widget.isHidden();
+	}
+
+	private String getDialogText()
+	{
+		// NPC Dialog
+		Widget npcDialog = client.getWidget(WidgetInfo.DIALOG_NPC_TEXT);
+		if (isVisible(npcDialog))
+		{
+			Widget npcName = client.getWidget(WidgetInfo.DIALOG_NPC_NAME);
+			String name = npcName != null ? npcName.getText() : "NPC";
+			return "[" + name + "] " + npcDialog.getText();
+		}
+
+		// Player Dialog
+		Widget playerDialog = client.getWidget(WidgetInfo.DIALOG_PLAYER_TEXT);
+		if (isVisible(playerDialog))
+		{
+			return "[Player] " + playerDialog.getText();
+		}
+
+		// Options Dialog
+		Widget optionDialog = client.getWidget(WidgetInfo.DIALOG_OPTION);
+		if (isVisible(optionDialog))
+		{
+			StringBuilder options = new StringBuilder("[Options] ");
+			Widget[] children = optionDialog.getChildren();
+			if (children != null)
+			{
+				for (Widget child : children)
+				{
+					if (child != null && child.getText() != null && !child.getText().isEmpty())
+					{
+						options.append(child.getText()).append(" | ");
+					}
+				}
+			}
+			return options.toString();
+		}
+
+		return null;
+	}
+}
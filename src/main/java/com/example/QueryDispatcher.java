@@ -0,0 +1,494 @@
+package com.example;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.*;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.callback.ClientThread;
+import org.java_websocket.WebSocket;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request/Response Protokoll über den WebSocket.
+ *
+ * Anfrage:  {"id": "1", "type": "objects", "ids": [10829], "radius": 15}
+ * Typen:    objects, npcs, ground_items, definition, skills, snapshot, stats, subscribe
+ * Antwort:  {"type": "responses", "tick": 1234, "responses": [{"id": "1", "ok": true, "result": [...]}]}
+ *
+ * subscribe ändert nur, welche Topics die Verbindung mit den Snapshots bekommt (siehe Subscription),
+ * und wird deshalb direkt auf dem WebSocket-Thread beantwortet.
+ *
+ * Queries werden auf dem WebSocket-Thread nur geparst und eingereiht, ausgeführt
+ * werden sie über ClientThread.invoke. Pro Tick gilt ein Budget, pro Client ein
+ * Limit an gleichzeitig offenen Queries. Außerhalb von LOGGED_IN kommen keine Ticks,
+ * dann werden eingereihte Queries sofort mit "not logged in" beantwortet.
+ */
+@Slf4j
+@Singleton
+class QueryDispatcher
+{
+	private final Client client;
+	private final ClientThread clientThread;
+	private final WillowFinderConfig config;
+	private final WillowFinderPlugin plugin;
+	private final NpcIndex npcIndex;
+	private final GroundItemIndex groundItemIndex;
+	private final LoadShedder loadShedder;
+	private final Gson gson = new Gson();
+
+	private final Queue<PendingQuery> pending = new ConcurrentLinkedQueue<>();
+	private final Map<WebSocket, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+	// Nur auf dem Client-Thread benutzt
+	private int executedThisTick;
+
+	@Inject
+	QueryDispatcher(Client client, ClientThread clientThread, WillowFinderConfig config, WillowFinderPlugin plugin,
+		NpcIndex npcIndex, GroundItemIndex groundItemIndex, LoadShedder loadShedder)
+	{
+		this.client = client;
+		this.clientThread = clientThread;
+		this.config = config;
+		this.plugin = plugin;
+		this.npcIndex = npcIndex;
+		this.groundItemIndex = groundItemIndex;
+		this.loadShedder = loadShedder;
+	}
+
+	/**
+	 * Wird vom WebSocket-Thread aufgerufen.
+	 */
+	void onMessage(WebSocket conn, String message)
+	{
+		JsonObject request;
+		String id;
+		String type;
+		try
+		{
+			request = gson.fromJson(message, JsonObject.class);
+			id = request.has("id") ? request.get("id").getAsString() : null;
+			type = request.has("type") ? request.get("type").getAsString() : null;
+		}
+		catch (RuntimeException e)
+		{
+			sendImmediate(conn, null, "malformed request");
+			return;
+		}
+
+		if (id == null || type == null)
+		{
+			sendImmediate(conn, id, "missing id or type");
+			return;
+		}
+
+		if ("subscribe".equals(type))
+		{
+			try
+			{
+				Subscription subscription = Subscription.parse(request, plugin.getCategoryRegistry().getTopics());
+				conn.setAttachment(subscription);
+				sendResult(conn, id, subscription.toMap());
+			}
+			catch (RuntimeException e)
+			{
+				sendImmediate(conn, id, e.getMessage() != null ? e.getMessage() : e.toString());
+			}
+			return;
+		}
+
+		AtomicInteger count = inFlight.computeIfAbsent(conn, c -> new AtomicInteger());
+		if (count.incrementAndGet() > config.maxConcurrentQueries())
+		{
+			count.decrementAndGet();
+			sendImmediate(conn, id, "too many concurrent queries");
+			return;
+		}
+
+		pending.add(new PendingQuery(conn, id, type, request));
+		if (drainScheduled.compareAndSet(false, true))
+		{
+			clientThread.invoke(this::drain);
+		}
+	}
+
+	void onClose(WebSocket conn)
+	{
+		inFlight.remove(conn);
+	}
+
+	/**
+	 * Zu Beginn jedes Ticks: Budget zurücksetzen und liegen gebliebene Queries abarbeiten.
+	 */
+	void onGameTick()
+	{
+		executedThisTick = 0;
+		if (!pending.isEmpty())
+		{
+			drain();
+		}
+	}
+
+	/**
+	 * Beim Ausloggen oder Laden kommt kein GameTick, das Budget würde sonst nie zurückgesetzt.
+	 */
+	void onGameStateChanged(GameState state)
+	{
+		executedThisTick = 0;
+		if (state != GameState.LOGGED_IN && !pending.isEmpty())
+		{
+			drain();
+		}
+	}
+
+	void clear()
+	{
+		pending.clear();
+		inFlight.clear();
+	}
+
+	/**
+	 * Läuft auf dem Client-Thread. Die Zeit zählt im LoadShedder als eigene Stufe, auch wenn
+	 * der Drain zwischen zwei Ticks läuft.
+	 */
+	private void drain()
+	{
+		long start = System.nanoTime();
+		drainPending();
+		loadShedder.record(LoadShedder.Stage.QUERIES, System.nanoTime() - start);
+	}
+
+	// Alle Antworten an denselben Client gehen als eine Nachricht raus
+	private void drainPending()
+	{
+		drainScheduled.set(false);
+
+		if (client.getGameState() != GameState.LOGGED_IN)
+		{
+			rejectPending("not logged in");
+			return;
+		}
+
+		int budget = config.maxQueriesPerTick();
+		Map<WebSocket, List<Map<String, Object>>> batches = new IdentityHashMap<>();
+
+		PendingQuery query;
+		while (executedThisTick < budget && (query = pending.poll()) != null)
+		{
+			executedThisTick++;
+
+			AtomicInteger count = inFlight.get(query.conn);
+			if (count != null)
+			{
+				count.decrementAndGet();
+			}
+			if (!query.conn.isOpen()) continue;
+
+			Map<String, Object> response = new HashMap<>();
+			response.put("id", query.id);
+			try
+			{
+				response.put("result", execute(query.type, query.request));
+				response.put("ok", true);
+			}
+			catch (RuntimeException e)
+			{
+				// Falsche Parameter-Typen (getAsInt auf Strings usw.) landen ebenfalls hier
+				response.put("ok", false);
+				response.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+			}
+			batches.computeIfAbsent(query.conn, c -> new ArrayList<>()).add(response);
+		}
+
+		int tick = client.getTickCount();
+		for (Map.Entry<WebSocket, List<Map<String, Object>>> batch : batches.entrySet())
+		{
+			Map<String, Object> message = new HashMap<>();
+			message.put("type", "responses");
+			message.put("tick", tick);
+			message.put("responses", batch.getValue());
+			send(batch.getKey(), gson.toJson(message));
+		}
+	}
+
+	// Alle eingereihten Queries ablehnen, ohne Budget zu verbrauchen
+	private void rejectPending(String error)
+	{
+		PendingQuery query;
+		while ((query = pending.poll()) != null)
+		{
+			AtomicInteger count = inFlight.get(query.conn);
+			if (count != null)
+			{
+				count.decrementAndGet();
+			}
+			sendImmediate(query.conn, query.id, error);
+		}
+	}
+
+	private Object execute(String type, JsonObject request)
+	{
+		switch (type)
+		{
+			case "objects":
+				return queryObjects(intSet(request, "ids"), request.has("radius") ? request.get("radius").getAsInt() : 15);
+			case "npcs":
+				return queryNpcs(intSet(request, "ids"), request.has("radius") ? request.get("radius").getAsInt() : 15);
+			case "ground_items":
+				return queryGroundItems(intSet(request, "ids"), request.has("radius") ? request.get("radius").getAsInt() : 15);
+			case "definition":
+				return queryDefinition(request.has("kind") ? request.get("kind").getAsString() : "object", requireInt(request, "id"));
+			case "skills":
+				return querySkills();
+			case "snapshot":
+				return plugin.buildSnapshot();
+			case "stats":
+				return plugin.getSessionStats().toMap();
+			default:
+				throw new IllegalArgumentException("unknown query type: " + type);
+		}
+	}
+
+	private List<Map<String, Object>> queryObjects(Set<Integer> ids, int radius)
+	{
+		List<Map<String, Object>> result = new ArrayList<>();
+		Player player = client.getLocalPlayer();
+		if (player == null || ids.isEmpty()) return result;
+
+		radius = Math.max(0, Math.min(radius, Constants.SCENE_SIZE));
+		LocalPoint playerLocation = player.getLocalLocation();
+		int sceneX = playerLocation.getSceneX();
+		int sceneY = playerLocation.getSceneY();
+		int plane = client.getPlane();
+		Tile[][][] tiles = client.getScene().getTiles();
+
+		for (int x = Math.max(0, sceneX - radius); x <= Math.min(Constants.SCENE_SIZE - 1, sceneX + radius); x++)
+		{
+			for (int y = Math.max(0, sceneY - radius); y <= Math.min(Constants.SCENE_SIZE - 1, sceneY + radius); y++)
+			{
+				Tile tile = tiles[plane][x][y];
+				if (tile == null) continue;
+
+				WallObject wall = tile.getWallObject();
+				if (wall != null && ids.contains(wall.getId()))
+				{
+					result.add(describe(wall, playerLocation));
+				}
+
+				GameObject[] objects = tile.getGameObjects();
+				if (objects == null) continue;
+				for (GameObject go : objects)
+				{
+					// Große Objekte belegen mehrere Tiles, nur am Ursprung zählen
+					if (go == null || !ids.contains(go.getId())) continue;
+					if (go.getSceneMinLocation().getX() != x || go.getSceneMinLocation().getY() != y) continue;
+					result.add(describe(go, playerLocation));
+				}
+			}
+		}
+		return result;
+	}
+
+	// NPCs und Bodenitems kommen aus den Spawn-Indizes, leeres ids-Set = alle
+	private List<Map<String, Object>> queryNpcs(Set<Integer> ids, int radius)
+	{
+		List<Map<String, Object>> result = new ArrayList<>();
+		Player player = client.getLocalPlayer();
+		if (player == null) return result;
+
+		LocalPoint playerLocation = player.getLocalLocation();
+		for (NPC npc : npcIndex.getNpcs())
+		{
+			if (!ids.isEmpty() && !ids.contains(npc.getId())) continue;
+			LocalPoint lp = npc.getLocalLocation();
+			if (lp == null || lp.distanceTo(playerLocation) / 128 > radius) continue;
+
+			Map<String, Object> m = describe(npc.getId(), lp, npc.getWorldLocation(), playerLocation);
+			m.put("name", npc.getName());
+			result.add(m);
+		}
+		return result;
+	}
+
+	private List<Map<String, Object>> queryGroundItems(Set<Integer> ids, int radius)
+	{
+		List<Map<String, Object>> result = new ArrayList<>();
+		Player player = client.getLocalPlayer();
+		if (player == null) return result;
+
+		LocalPoint playerLocation = player.getLocalLocation();
+		for (Map.Entry<TileItem, Tile> entry : groundItemIndex.getItems().entrySet())
+		{
+			TileItem item = entry.getKey();
+			Tile tile = entry.getValue();
+			if (!ids.isEmpty() && !ids.contains(item.getId())) continue;
+			LocalPoint lp = tile.getLocalLocation();
+			if (tile.getPlane() != client.getPlane() || lp.distanceTo(playerLocation) / 128 > radius) continue;
+
+			Map<String, Object> m = describe(item.getId(), lp, tile.getWorldLocation(), playerLocation);
+			m.put("quantity", item.getQuantity());
+			result.add(m);
+		}
+		return result;
+	}
+
+	private Map<String, Object> describe(TileObject object, LocalPoint playerLocation)
+	{
+		LocalPoint lp = object.getLocalLocation();
+		return describe(object.getId(), lp, WorldPoint.fromLocal(client, lp), playerLocation);
+	}
+
+	private Map<String, Object> describe(int id, LocalPoint lp, WorldPoint wp, LocalPoint playerLocation)
+	{
+		Map<String, Object> m = new HashMap<>();
+		m.put("id", id);
+		m.put("world_x", wp.getX());
+		m.put("world_y", wp.getY());
+		m.put("plane", wp.getPlane());
+		m.put("distance", lp.distanceTo(playerLocation) / 128);
+		net.runelite.api.Point canvas = Perspective.localToCanvas(client, lp, client.getPlane());
+		if (canvas != null)
+		{
+			m.put("canvas_x", canvas.getX());
+			m.put("canvas_y", canvas.getY());
+		}
+		return m;
+	}
+
+	private Map<String, Object> queryDefinition(String kind, int id)
+	{
+		String name;
+		switch (kind)
+		{
+			case "object":
+				name = client.getObjectDefinition(id).getName();
+				break;
+			case "item":
+				name = client.getItemDefinition(id).getName();
+				break;
+			case "npc":
+				name = client.getNpcDefinition(id).getName();
+				break;
+			default:
+				throw new IllegalArgumentException("unknown definition kind: " + kind);
+		}
+
+		Map<String, Object> m = new HashMap<>();
+		m.put("kind", kind);
+		m.put("id", id);
+		m.put("name", name);
+		return m;
+	}
+
+	private Map<String, Object> querySkills()
+	{
+		Map<String, Object> skills = new HashMap<>();
+		for (Skill skill : Skill.values())
+		{
+			Map<String, Object> m = new HashMap<>();
+			m.put("level", client.getRealSkillLevel(skill));
+			m.put("boosted_level", client.getBoostedSkillLevel(skill));
+			m.put("xp", client.getSkillExperience(skill));
+			skills.put(skill.getName().toLowerCase(), m);
+		}
+		return skills;
+	}
+
+	private static int requireInt(JsonObject request, String key)
+	{
+		if (!request.has(key))
+		{
+			throw new IllegalArgumentException("missing " + key);
+		}
+		return request.get(key).getAsInt();
+	}
+
+	private static Set<Integer> intSet(JsonObject request, String key)
+	{
+		Set<Integer> set = new HashSet<>();
+		if (request.has(key) && request.get(key).isJsonArray())
+		{
+			JsonArray array = request.getAsJsonArray(key);
+			for (JsonElement element : array)
+			{
+				set.add(element.getAsInt());
+			}
+		}
+		return set;
+	}
+
+	private void sendImmediate(WebSocket conn, String id, String error)
+	{
+		Map<String, Object> response = new HashMap<>();
+		response.put("id", id);
+		response.put("ok", false);
+		response.put("error", error);
+
+		Map<String, Object> message = new HashMap<>();
+		message.put("type", "responses");
+		message.put("responses", List.of(response));
+		send(conn, gson.toJson(message));
+	}
+
+	private void sendResult(WebSocket conn, String id, Object result)
+	{
+		Map<String, Object> response = new HashMap<>();
+		response.put("id", id);
+		response.put("ok", true);
+		response.put("result", result);
+
+		Map<String, Object> message = new HashMap<>();
+		message.put("type", "responses");
+		message.put("responses", List.of(response));
+		send(conn, gson.toJson(message));
+	}
+
+	private static void send(WebSocket conn, String json)
+	{
+		try
+		{
+			if (conn.isOpen())
+			{
+				conn.send(json);
+			}
+		}
+		catch (Exception e)
+		{
+			log.error("Query response failed", e);
+		}
+	}
+
+	private static class PendingQuery
+	{
+		final WebSocket conn;
+		final String id;
+		final String type;
+		final JsonObject request;
+
+		PendingQuery(WebSocket conn, String id, String type, JsonObject request)
+		{
+			this.conn = conn;
+			this.id = id;
+			this.type = type;
+			this.request = request;
+		}
+	}
+}
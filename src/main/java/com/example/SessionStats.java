@@ -0,0 +1,289 @@
+package com.example;
+
+import net.runelite.api.Client;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.Skill;
+import net.runelite.api.events.StatChanged;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Laufende Session-Statistik (XP, Logs, Erz, Pay-dirt, abgebaute Bäume und Veins, Bank-Trips)
+ * mit Summen über die letzte Minute, die letzten 10 Minuten und die ganze Session. Die Zähler
+ * werden aus Events fortgeschrieben statt aus Snapshot-Differenzen, der Zustand hat feste
+ * Größe: pro Zähler ein Ringpuffer aus Buckets zu je 10 Ticks plus laufende Fenstersummen.
+ * Außer toMap() alloziert nichts.
+ *
+ * Pay-dirt und das daraus im Sack gewonnene Erz sind getrennte Zähler, sonst zählt dasselbe
+ * Erz in der Motherlode Mine doppelt. Abgebaute Bäume und Veins sind alle Wechsel in der
+ * Szene, auch die anderer Spieler, daher "scene_" im Namen.
+ *
+ * Nur auf dem Client-Thread benutzen.
+ */
+@Singleton
+class SessionStats
+{
+	// Zähler
+	static final int XP = 0;
+	static final int WOODCUTTING_XP = 1;
+	static final int MINING_XP = 2;
+	static final int LOGS = 3;
+	static final int ORE = 4;
+	static final int PAY_DIRT = 5;
+	static final int SCENE_TREES_DEPLETED = 6;
+	static final int SCENE_VEINS_DEPLETED = 7;
+	static final int BANK_TRIPS = 8;
+	static final int COUNTER_COUNT = 9;
+
+	private static final String[] COUNTER_NAMES = {
+		"xp", "woodcutting_xp", "mining_xp", "logs", "ore", "pay_dirt", "scene_trees_depleted", "scene_veins_depleted",
+		"bank_trips"
+	};
+
+	// Snapshot-Topic "stats" nur alle 10 Ticks (6 Sekunden)
+	static final int PUBLISH_EVERY_TICKS = 10;
+
+	private static final int BUCKET_TICKS = 10;
+	// 100 Buckets à 10 Ticks à 0,6 s = 10 Minuten, die letzten 10 Buckets = 1 Minute
+	private static final int BUCKETS = 100;
+	private static final int ONE_MINUTE_BUCKETS = 10;
+	private static final int TICKS_PER_HOUR = 6000;
+
+	private static final int[] LOG_IDS = {1511, 1521, 1519, 1517, 1515, 1513};
+	// Erze, auch die aus dem Sack der Motherlode Mine
+	private static final int[] ORE_IDS = {436, 438, 440, 442, 444, 447, 449, 451, 453};
+	private static final int PAY_DIRT_ID = 12011;
+
+	private final Client client;
+
+	private final long[][] buckets = new long[COUNTER_COUNT][BUCKETS];
+	private final long[] total = new long[COUNTER_COUNT];
+	private final long[] lastMinute = new long[COUNTER_COUNT];
+	private final long[] lastTenMinutes = new long[COUNTER_COUNT];
+	private int bucket;
+	private int bucketTicks;
+	private long sessionTicks;
+	private int ticksSincePublish;
+
+	// Ausgangswerte für Differenzen, -1 = noch unbekannt
+	private final int[] skillXp = new int[Skill.values().length];
+	private int inventoryLogs = -1;
+	private int inventoryOre = -1;
+	private int inventoryPayDirt = -1;
+
+	@Inject
+	SessionStats(Client client)
+	{
+		this.client = client;
+		Arrays.fill(skillXp, -1);
+	}
+
+	/**
+	 * Einmal pro GameTick, schiebt die Zeitfenster weiter.
+	 */
+	void onTick()
+	{
+		sessionTicks++;
+		ticksSincePublish++;
+		if (++bucketTicks < BUCKET_TICKS) return;
+
+		bucketTicks = 0;
+		bucket = (bucket + 1) % BUCKETS;
+		int leavingMinute = (bucket - ONE_MINUTE_BUCKETS + BUCKETS) % BUCKETS;
+		for (int c = 0; c < COUNTER_COUNT; c++)
+		{
+			lastMinute[c] -= buckets[c][leavingMinute];
+			// Der neue Bucket ist der älteste des 10-Minuten-Fensters
+			lastTenMinutes[c] -= buckets[c][bucket];
+			buckets[c][bucket] = 0;
+		}
+	}
+
+	void onStatChanged(StatChanged event)
+	{
+		Skill skill = event.getSkill();
+		int xp = event.getXp();
+		int previous = skillXp[skill.ordinal()];
+		skillXp[skill.ordinal()] = xp;
+		// Das erste Event nach dem Login liefert nur den Ausgangswert
+		if (previous < 0 || xp <= previous) return;
+
+		int gained = xp - previous;
+		add(XP, gained);
+		if (skill == Skill.WOODCUTTING)
+		{
+			add(WOODCUTTING_XP, gained);
+		}
+		else if (skill == Skill.MINING)
+		{
+			add(MINING_XP, gained);
+		}
+	}
+
+	/**
+	 * Neuer Stand des Inventars. Zuwachs an Logs/Erz/Pay-dirt zählt als gesammelt, solange die
+	 * Bank zu ist; wird das Inventar bei offener Bank davon leer, zählt das als Bank-Trip.
+	 */
+	void onInventoryChanged(ItemContainer inventory)
+	{
+		int logs = 0;
+		int ore = 0;
+		int payDirt = 0;
+		for (Item item : inventory.getItems())
+		{
+			if (contains(LOG_IDS, item.getId()))
+			{
+				logs += item.getQuantity();
+			}
+			else if (contains(ORE_IDS, item.getId()))
+			{
+				ore += item.getQuantity();
+			}
+			else if (item.getId() == PAY_DIRT_ID)
+			{
+				payDirt += item.getQuantity();
+			}
+		}
+
+		if (inventoryLogs >= 0)
+		{
+			if (PlayerState.isBankOpen(client))
+			{
+				if (inventoryLogs + inventoryOre + inventoryPayDirt > 0 && logs + ore + payDirt == 0)
+				{
+					add(BANK_TRIPS, 1);
+				}
+			}
+			else
+			{
+				add(LOGS, Math.max(0, logs - inventoryLogs));
+				add(ORE, Math.max(0, ore - inventoryOre));
+				add(PAY_DIRT, Math.max(0, payDirt - inventoryPayDirt));
+			}
+		}
+		inventoryLogs = logs;
+		inventoryOre = ore;
+		inventoryPayDirt = payDirt;
+	}
+
+	/**
+	 * Zustandswechsel aus dem ObjectLifecycleTracker; gezählt werden nur die ab from, also die
+	 * des aktuellen Ticks, ältere sind beim letzten Aufruf schon gezählt.
+	 */
+	void onTransitions(List<ObjectLifecycleTracker.Transition> transitions, int from)
+	{
+		for (int i = from; i < transitions.size(); i++)
+		{
+			ObjectLifecycleTracker.Transition t = transitions.get(i);
+			if (!ObjectLifecycleTracker.isDepleted(t.to)) continue;
+			add(CategoryRegistry.TREE.equals(t.kind) ? SCENE_TREES_DEPLETED : SCENE_VEINS_DEPLETED, 1);
+		}
+	}
+
+	/**
+	 * Nach Logout oder Weltwechsel sind die Ausgangswerte ungültig, die Zähler bleiben.
+	 */
+	void resetBaselines()
+	{
+		Arrays.fill(skillXp, -1);
+		inventoryLogs = -1;
+		inventoryOre = -1;
+		inventoryPayDirt = -1;
+	}
+
+	void clear()
+	{
+		resetBaselines();
+		for (int c = 0; c < COUNTER_COUNT; c++)
+		{
+			Arrays.fill(buckets[c], 0);
+			total[c] = 0;
+			lastMinute[c] = 0;
+			lastTenMinutes[c] = 0;
+		}
+		bucket = 0;
+		bucketTicks = 0;
+		sessionTicks = 0;
+		ticksSincePublish = 0;
+	}
+
+	/**
+	 * true, wenn seit dem letzten Mal PUBLISH_EVERY_TICKS vergangen sind.
+	 */
+	boolean takeDue()
+	{
+		if (ticksSincePublish < PUBLISH_EVERY_TICKS) return false;
+		ticksSincePublish = 0;
+		return true;
+	}
+
+	long getTotal(int counter)
+	{
+		return total[counter];
+	}
+
+	long getLastMinute(int counter)
+	{
+		return lastMinute[counter];
+	}
+
+	long getLastTenMinutes(int counter)
+	{
+		return lastTenMinutes[counter];
+	}
+
+	Map<String, Object> toMap()
+	{
+		// Abgedeckte Ticks der Fenster; der aktuelle Bucket ist erst teilweise gefüllt
+		long minuteTicks = Math.min(sessionTicks, (ONE_MINUTE_BUCKETS - 1) * BUCKET_TICKS + bucketTicks);
+		long tenMinuteTicks = Math.min(sessionTicks, (BUCKETS - 1) * BUCKET_TICKS + bucketTicks);
+
+		Map<String, Object> counters = new HashMap<>();
+		for (int c = 0; c < COUNTER_COUNT; c++)
+		{
+			Map<String, Object> m = new HashMap<>();
+			m.put("session", total[c]);
+			m.put("last_1m", lastMinute[c]);
+			m.put("last_10m", lastTenMinutes[c]);
+			m.put("per_hour_1m", perHour(lastMinute[c], minuteTicks));
+			m.put("per_hour_10m", perHour(lastTenMinutes[c], tenMinuteTicks));
+			m.put("per_hour_session", perHour(total[c], sessionTicks));
+			counters.put(COUNTER_NAMES[c], m);
+		}
+
+		Map<String, Object> m = new HashMap<>();
+		m.put("session_ticks", sessionTicks);
+		m.put("session_seconds", sessionTicks * 6 / 10);
+		m.put("counters", counters);
+		return m;
+	}
+
+	private void add(int counter, long amount)
+	{
+		if (amount == 0) return;
+		buckets[counter][bucket] += amount;
+		total[counter] += amount;
+		lastMinute[counter] += amount;
+		lastTenMinutes[counter] += amount;
+	}
+
+	private static long perHour(long count, long ticks)
+	{
+		return ticks == 0 ? 0 : count * TICKS_PER_HOUR / ticks;
+	}
+
+	private static boolean contains(int[] ids, int id)
+	{
+		for (int candidate : ids)
+		{
+			if (candidate == id) return true;
+		}
+		return false;
+	}
+}
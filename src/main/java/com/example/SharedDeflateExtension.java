@@ -0,0 +1,289 @@
+package com.example;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.extensions.CompressionExtension;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.DataFrame;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.FramedataImpl1;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.IntSupplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * permessage-deflate (RFC 7692) ohne Context Takeover in beide Richtungen. Dadurch ist
+ * jede Nachricht unabhängig komprimiert und ein einmal komprimierter Snapshot kann an
+ * alle Verbindungen mit dieser Extension verschickt werden. Frames, die schon RSV1
+ * gesetzt haben, gelten als vorkomprimiert und werden nicht erneut angefasst.
+ *
+ * Eingehende Nachrichten werden höchstens bis MAX_INFLATED_MESSAGE_SIZE entpackt, sonst
+ * schließt die Verbindung mit 1009 (wie bei zu großen Frames). Deflater und Inflater
+ * belegen nativen Speicher und werden in reset() freigegeben, das beim Schließen läuft.
+ */
+class SharedDeflateExtension extends CompressionExtension
+{
+	static final String EXTENSION_NAME = "permessage-deflate";
+
+	// Queries sind kleines JSON; schützt vor Deflate-Bomben, der Server lauscht auf allen Interfaces
+	static final int MAX_INFLATED_MESSAGE_SIZE = 1 << 20;
+
+	private static final byte[] TAIL = {0x00, 0x00, (byte) 0xFF, (byte) 0xFF};
+
+	private final IntSupplier level;
+
+	// Pro Verbindung, lazy angelegt
+	private Deflater deflater;
+	private Inflater inflater;
+	private boolean inflatingMessage;
+	// Schon entpackte Bytes der laufenden Nachricht, über Continuation-Frames hinweg
+	private int inflatedMessageSize;
+
+	SharedDeflateExtension(IntSupplier level)
+	{
+		this.level = level;
+	}
+
+	static boolean isNegotiated(WebSocket conn)
+	{
+		Draft draft = conn.getDraft();
+		return draft instanceof Draft_6455 && ((Draft_6455) draft).getExtension() instanceof SharedDeflateExtension;
+	}
+
+	/**
+	 * Gibt Deflater und Inflater der Verbindung frei. Für onClose, falls der Draft nicht
+	 * ohnehin reset() aufruft; mehrfaches Freigeben schadet nicht.
+	 */
+	static void release(WebSocket conn)
+	{
+		if (isNegotiated(conn))
+		{
+			((Draft_6455) conn.getDraft()).getExtension().reset();
+		}
+	}
+
+	/**
+	 * Komprimiert eine komplette Nachricht wie für einen RSV1-Frame gefordert
+	 * (raw deflate, sync flush, ohne die abschließenden 00 00 FF FF).
+	 */
+	static ByteBuffer compress(Deflater deflater, ByteBuffer payload)
+	{
+		ByteBuffer input = payload.duplicate();
+		byte[] in = new byte[input.remaining()];
+		input.get(in);
+
+		deflater.reset();
+		deflater.setInput(in);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, in.length / 4));
+		byte[] chunk = new byte[8192];
+		int n;
+		do
+		{
+			n = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+			out.write(chunk, 0, n);
+		}
+		while (n == chunk.length || !deflater.needsInput());
+
+		byte[] compressed = out.toByteArray();
+		int length = compressed.length;
+		if (endsWithTail(compressed, length))
+		{
+			length -= TAIL.length;
+		}
+		return ByteBuffer.wrap(compressed, 0, length).slice().asReadOnlyBuffer();
+	}
+
+	@Override
+	public synchronized void encodeFrame(Framedata inputFrame)
+	{
+		// Nur komplette, noch unkomprimierte Nachrichten; vorkomprimierte Snapshots durchlassen
+		if (!(inputFrame instanceof DataFrame) || inputFrame.isRSV1() || !inputFrame.isFin()
+			|| inputFrame.getOpcode() == Opcode.CONTINUOUS)
+		{
+			return;
+		}
+
+		if (deflater == null)
+		{
+			deflater = new Deflater(level.getAsInt(), true);
+		}
+		deflater.setLevel(level.getAsInt());
+
+		FramedataImpl1 frame = (FramedataImpl1) inputFrame;
+		frame.setPayload(compress(deflater, frame.getPayloadData()));
+		frame.setRSV1(true);
+	}
+
+	@Override
+	public synchronized void decodeFrame(Framedata inputFrame) throws InvalidDataException
+	{
+		if (!(inputFrame instanceof DataFrame))
+		{
+			return;
+		}
+
+		// RSV1 steht nur auf dem ersten Frame einer Nachricht, Continuation-Frames erben den Zustand
+		if (inputFrame.getOpcode() == Opcode.CONTINUOUS)
+		{
+			if (!inflatingMessage) return;
+		}
+		else if (inputFrame.isRSV1())
+		{
+			inflatingMessage = true;
+		}
+		else
+		{
+			return;
+		}
+
+		if (inflater == null)
+		{
+			inflater = new Inflater(true);
+		}
+
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			inflate(inputFrame.getPayloadData(), out);
+			if (inputFrame.isFin())
+			{
+				inflate(ByteBuffer.wrap(TAIL), out);
+				// client_no_context_takeover: jede Nachricht startet mit frischem Kontext
+				inflater.reset();
+				inflatingMessage = false;
+				inflatedMessageSize = 0;
+			}
+
+			FramedataImpl1 frame = (FramedataImpl1) inputFrame;
+			frame.setPayload(ByteBuffer.wrap(out.toByteArray()));
+			frame.setRSV1(false);
+		}
+		catch (DataFormatException e)
+		{
+			inflater.reset();
+			inflatingMessage = false;
+			inflatedMessageSize = 0;
+			throw new InvalidDataException(CloseFrame.POLICY_VALIDATION, e.getMessage());
+		}
+	}
+
+	private void inflate(ByteBuffer payload, ByteArrayOutputStream out) throws DataFormatException, InvalidDataException
+	{
+		ByteBuffer input = payload.duplicate();
+		byte[] in = new byte[input.remaining()];
+		input.get(in);
+		inflater.setInput(in);
+
+		byte[] chunk = new byte[8192];
+		int n;
+		while ((n = inflater.inflate(chunk)) > 0)
+		{
+			inflatedMessageSize += n;
+			if (inflatedMessageSize > MAX_INFLATED_MESSAGE_SIZE)
+			{
+				inflater.reset();
+				inflatingMessage = false;
+				inflatedMessageSize = 0;
+				throw new InvalidDataException(CloseFrame.TOOBIG, "inflated message exceeds " + MAX_INFLATED_MESSAGE_SIZE + " bytes");
+			}
+			out.write(chunk, 0, n);
+		}
+	}
+
+	@Override
+	public boolean acceptProvidedExtensionAsServer(String inputExtensionHeader)
+	{
+		if (inputExtensionHeader == null) return false;
+
+		// Mehrere Angebote möglich, das erste passende gewinnt
+		for (String offer : inputExtensionHeader.split(","))
+		{
+			String[] params = offer.split(";");
+			if (!EXTENSION_NAME.equalsIgnoreCase(params[0].trim())) continue;
+
+			boolean acceptable = true;
+			for (int i = 1; i < params.length; i++)
+			{
+				String param = params[i].trim();
+				// Deflater kann das Fenster nicht verkleinern -> solche Angebote ablehnen
+				if (param.startsWith("server_max_window_bits") && param.contains("=")
+					&& !param.substring(param.indexOf('=') + 1).trim().replace("\"", "").equals("15"))
+				{
+					acceptable = false;
+				}
+			}
+			if (acceptable) return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean acceptProvidedExtensionAsClient(String inputExtensionHeader)
+	{
+		return false;
+	}
+
+	@Override
+	public String getProvidedExtensionAsServer()
+	{
+		return EXTENSION_NAME + "; server_no_context_takeover; client_no_context_takeover";
+	}
+
+	@Override
+	public String getProvidedExtensionAsClient()
+	{
+		return "";
+	}
+
+	@Override
+	public IExtension copyInstance()
+	{
+		return new SharedDeflateExtension(level);
+	}
+
+	/**
+	 * Draft_6455.reset() ruft das beim Schließen der Verbindung auf; danach hängt die
+	 * Extension nicht mehr am Draft. Die Codecs werden bei Bedarf neu angelegt.
+	 */
+	@Override
+	public synchronized void reset()
+	{
+		if (deflater != null)
+		{
+			deflater.end();
+			deflater = null;
+		}
+		if (inflater != null)
+		{
+			inflater.end();
+			inflater = null;
+		}
+		inflatingMessage = false;
+		inflatedMessageSize = 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "SharedDeflateExtension";
+	}
+
+	private static boolean endsWithTail(byte[] data, int length)
+	{
+		if (length < TAIL.length) return false;
+		for (int i = 0; i < TAIL.length; i++)
+		{
+			if (data[length - TAIL.length + i] != TAIL[i]) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,433 @@
+package com.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Single-Producer/Multi-Consumer Ringpuffer in einer memory-mapped Datei für
+ * Konsumenten auf demselben Rechner. Leser pollen den Header und kopieren den
+ * Slot ohne Syscalls; es gibt keinen Rückkanal, langsame Leser werden überholt.
+ *
+ * Gemappte Dateien werden nie ersetzt, gekürzt oder verlängert (unter Windows scheitert das,
+ * solange irgendein Prozess sie gemappt hat). Jeder Writer legt seinen Ring unter
+ * {@code <pfad>.<generation>} an und zeigt erst danach mit der kleinen Zeigerdatei unter dem
+ * Pfad darauf. Die Zeigerdatei wird nur gelesen, nie gemappt, und kann deshalb per Rename
+ * ausgetauscht werden. Wer den alten Ring noch gemappt hat, liest dort gefahrlos weiter:
+ * close() setzt state auf 0, danach folgt der Leser der Zeigerdatei zur neuen generation.
+ * Ältere Ringe löscht der nächste Writer, soweit sie nicht mehr gemappt sind.
+ *
+ * Layout (little endian, alle Offsets in Bytes). Die Zeigerdatei besteht nur aus dem
+ * Header des aktuellen Rings ohne writeSeq und state:
+ * <pre>
+ * Header (64 Bytes)
+ *   0  int   magic        0x57465342 ("WFSB")
+ *   4  int   version      3
+ *   8  int   slotCount
+ *  12  int   slotSize     inkl. 16 Byte Slot-Header, Vielfaches von 8
+ *  16  long  writeSeq     zuletzt veröffentlichte Sequenz (0 = noch nichts)
+ *  24  int   state        1 = Writer aktiv, 0 = gestoppt
+ *  28  int   reserviert
+ *  32  long  generation   pro Writer neu, Sequenzen beginnen dann wieder bei 1
+ *  40  ..63  reserviert
+ * Slot i (ab 64 + i * slotSize), Sequenz s liegt in Slot (s - 1) % slotCount
+ *   0  long  seq          0 während des Schreibens, danach s
+ *   8  int   length       Länge der Payload
+ *  12  int   reserviert
+ *  16  byte[length]       UTF-8 JSON Snapshot
+ * </pre>
+ * Leseprotokoll (Seqlock): seq lesen (acquire), Payload kopieren, seq erneut lesen.
+ * Stimmen beide mit der erwarteten Sequenz überein, ist die Kopie konsistent. Liefert
+ * Reader.read RESTARTED, gehört die nächste Sequenz zu einem neuen Writer und ist 1.
+ */
+class SharedMemoryTransport implements AutoCloseable
+{
+	static final int MAGIC = 0x57465342;
+	static final int VERSION = 3;
+	static final int HEADER_SIZE = 64;
+	static final int SLOT_HEADER_SIZE = 16;
+
+	static final int OFFSET_MAGIC = 0;
+	static final int OFFSET_VERSION = 4;
+	static final int OFFSET_SLOT_COUNT = 8;
+	static final int OFFSET_SLOT_SIZE = 12;
+	static final int OFFSET_WRITE_SEQ = 16;
+	static final int OFFSET_STATE = 24;
+	static final int OFFSET_GENERATION = 32;
+
+	// Rückgabewerte von Reader.read
+	static final int NOT_READY = -1;
+	static final int OVERWRITTEN = -2;
+	static final int RESTARTED = -3;
+
+	private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final MappedByteBuffer buffer;
+	private final int slotCount;
+	private final int slotSize;
+	private final long generation;
+	private long sequence;
+	private long oversizeDropped;
+
+	SharedMemoryTransport(File file, int slotCount, int slotSize) throws IOException
+	{
+		// Offsets sind int, der ganze Ring muss in einen MappedByteBuffer passen
+		long size = HEADER_SIZE + (long) slotCount * slotSize;
+		if (slotCount < 2 || slotSize <= SLOT_HEADER_SIZE || slotSize % 8 != 0 || size > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("invalid ring geometry: " + slotCount + " x " + slotSize);
+		}
+
+		this.slotCount = slotCount;
+		this.slotSize = slotSize;
+
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs())
+		{
+			throw new IOException("could not create " + parent);
+		}
+
+		// Über alle liegengebliebenen Ringe hinaus, falls die Zeigerdatei fehlt: eine Datei,
+		// die ein Leser noch gemappt hat, darf nicht wiederverwendet werden
+		generation = Math.max(readGeneration(file.toPath()), lastRingGeneration(file)) + 1;
+
+		// Frisch angelegt und gemappt ist der Ring genullt
+		try (FileChannel channel = FileChannel.open(ringFile(file, generation).toPath(), StandardOpenOption.CREATE_NEW,
+			StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putInt(OFFSET_VERSION, VERSION);
+		buffer.putInt(OFFSET_SLOT_COUNT, slotCount);
+		buffer.putInt(OFFSET_SLOT_SIZE, slotSize);
+		buffer.putLong(OFFSET_GENERATION, generation);
+		buffer.putInt(OFFSET_STATE, 1);
+		VarHandle.releaseFence();
+		buffer.putInt(OFFSET_MAGIC, MAGIC);
+
+		// Erst wenn der Ring steht, zeigt die Zeigerdatei darauf
+		ByteBuffer pointer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		pointer.putInt(OFFSET_MAGIC, MAGIC);
+		pointer.putInt(OFFSET_VERSION, VERSION);
+		pointer.putInt(OFFSET_SLOT_COUNT, slotCount);
+		pointer.putInt(OFFSET_SLOT_SIZE, slotSize);
+		pointer.putLong(OFFSET_GENERATION, generation);
+		Path tmp = new File(file.getPath() + ".tmp").toPath();
+		Files.write(tmp, pointer.array());
+		try
+		{
+			Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		deleteOldRings(file, generation);
+	}
+
+	/**
+	 * Die Datei, in der der Ring der Generation generation liegt.
+	 */
+	static File ringFile(File file, long generation)
+	{
+		return new File(file.getPath() + "." + generation);
+	}
+
+	private static long lastRingGeneration(File file)
+	{
+		long last = 0;
+		File[] siblings = file.getAbsoluteFile().getParentFile().listFiles();
+		if (siblings == null) return 0;
+		for (File sibling : siblings)
+		{
+			last = Math.max(last, ringGeneration(file, sibling));
+		}
+		return last;
+	}
+
+	private static void deleteOldRings(File file, long generation)
+	{
+		File[] siblings = file.getAbsoluteFile().getParentFile().listFiles();
+		if (siblings == null) return;
+		for (File sibling : siblings)
+		{
+			long old = ringGeneration(file, sibling);
+			// Unter Windows scheitert das, solange ein Leser den Ring noch gemappt hat; der nächste Writer versucht es wieder
+			if (old > 0 && old < generation && !sibling.delete())
+			{
+				sibling.deleteOnExit();
+			}
+		}
+	}
+
+	// generation, wenn candidate ein Ring zu file ist, sonst 0
+	private static long ringGeneration(File file, File candidate)
+	{
+		String prefix = file.getName() + ".";
+		String name = candidate.getName();
+		if (!name.startsWith(prefix)) return 0;
+		try
+		{
+			return Long.parseLong(name.substring(prefix.length()));
+		}
+		catch (NumberFormatException e)
+		{
+			return 0;
+		}
+	}
+
+	/**
+	 * generation, auf die die Zeigerdatei unter path zeigt, 0 wenn es keine gültige gibt.
+	 */
+	static long readGeneration(Path path)
+	{
+		if (!Files.isRegularFile(path)) return 0;
+
+		byte[] bytes = new byte[HEADER_SIZE];
+		try (InputStream in = Files.newInputStream(path))
+		{
+			if (in.readNBytes(bytes, 0, HEADER_SIZE) < HEADER_SIZE) return 0;
+		}
+		catch (IOException e)
+		{
+			return 0;
+		}
+		ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		if (header.getInt(OFFSET_MAGIC) != MAGIC || header.getInt(OFFSET_VERSION) != VERSION) return 0;
+		return header.getLong(OFFSET_GENERATION);
+	}
+
+	/**
+	 * Veröffentlicht eine Payload (Position bis Limit, die Position bleibt unverändert).
+	 * Nur von einem Thread aufrufen. Zu große Payloads werden verworfen.
+	 */
+	boolean publish(ByteBuffer payload)
+	{
+		int length = payload.remaining();
+		if (length > slotSize - SLOT_HEADER_SIZE)
+		{
+			oversizeDropped++;
+			return false;
+		}
+
+		long seq = sequence + 1;
+		int base = slotOffset(seq);
+
+		// Slot als "in Arbeit" markieren, bevor die Payload überschrieben wird
+		LONG.setRelease(buffer, base, 0L);
+		VarHandle.storeStoreFence();
+
+		buffer.putInt(base + 8, length);
+		ByteBuffer target = buffer.duplicate();
+		target.position(base + SLOT_HEADER_SIZE);
+		target.put(payload.duplicate());
+
+		LONG.setRelease(buffer, base, seq);
+		LONG.setRelease(buffer, OFFSET_WRITE_SEQ, seq);
+		sequence = seq;
+		return true;
+	}
+
+	long getSequence()
+	{
+		return sequence;
+	}
+
+	long getGeneration()
+	{
+		return generation;
+	}
+
+	long getOversizeDropped()
+	{
+		return oversizeDropped;
+	}
+
+	int getMaxPayloadSize()
+	{
+		return slotSize - SLOT_HEADER_SIZE;
+	}
+
+	private int slotOffset(long seq)
+	{
+		return HEADER_SIZE + (int) ((seq - 1) % slotCount) * slotSize;
+	}
+
+	@Override
+	public void close()
+	{
+		// Leser, die noch diesen Ring gemappt haben, folgen danach der Zeigerdatei zum nächsten Writer
+		VarHandle.releaseFence();
+		buffer.putInt(OFFSET_STATE, 0);
+		buffer.force();
+	}
+
+	/**
+	 * Leser für Java-Konsumenten (und den Benchmark). Andere Sprachen lesen das Layout oben direkt.
+	 */
+	static class Reader implements AutoCloseable
+	{
+		// Bei gestopptem Writer höchstens so oft unter dem Pfad nachsehen
+		static final long REOPEN_INTERVAL_NANOS = 100_000_000L;
+
+		private final Path path;
+		private MappedByteBuffer buffer;
+		private int slotCount;
+		private int slotSize;
+		private long generation;
+		private long lastReopenCheck;
+
+		Reader(File file) throws IOException
+		{
+			path = file.toPath();
+			map();
+		}
+
+		private void map() throws IOException
+		{
+			long current = readGeneration(path);
+			if (current == 0)
+			{
+				throw new IOException("not a snapshot ring: " + path);
+			}
+			map(ringFile(path.toFile(), current).toPath());
+		}
+
+		private void map(Path ring) throws IOException
+		{
+			MappedByteBuffer mapped;
+			try (FileChannel channel = FileChannel.open(ring, StandardOpenOption.READ))
+			{
+				mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (mapped.capacity() < HEADER_SIZE || mapped.getInt(OFFSET_MAGIC) != MAGIC || mapped.getInt(OFFSET_VERSION) != VERSION)
+			{
+				throw new IOException("not a snapshot ring: " + ring);
+			}
+			int count = mapped.getInt(OFFSET_SLOT_COUNT);
+			int size = mapped.getInt(OFFSET_SLOT_SIZE);
+			if (count < 2 || size <= SLOT_HEADER_SIZE || HEADER_SIZE + (long) count * size > mapped.capacity())
+			{
+				throw new IOException("invalid ring geometry in " + ring);
+			}
+
+			buffer = mapped;
+			slotCount = count;
+			slotSize = size;
+			generation = mapped.getLong(OFFSET_GENERATION);
+		}
+
+		/**
+		 * Mappt den Ring neu, wenn die Zeigerdatei inzwischen auf einen anderen Writer zeigt.
+		 *
+		 * @return true, wenn neu gemappt wurde; Sequenzen beginnen dann wieder bei 1
+		 */
+		boolean reopenIfReplaced() throws IOException
+		{
+			long current = readGeneration(path);
+			if (current == 0 || current == generation) return false;
+			map(ringFile(path.toFile(), current).toPath());
+			return true;
+		}
+
+		long getGeneration()
+		{
+			return generation;
+		}
+
+		long latestSequence()
+		{
+			return (long) LONG.getAcquire(buffer, OFFSET_WRITE_SEQ);
+		}
+
+		boolean isWriterActive()
+		{
+			return buffer.getInt(OFFSET_STATE) == 1;
+		}
+
+		int getMaxPayloadSize()
+		{
+			return slotSize - SLOT_HEADER_SIZE;
+		}
+
+		/**
+		 * Kopiert die Payload von Sequenz seq nach dst (ab dst.position()), dst braucht getMaxPayloadSize() Platz.
+		 * Liefert die Länge, NOT_READY, OVERWRITTEN, wenn der Writer den Slot schon neu belegt hat, oder
+		 * RESTARTED, wenn ein neuer Writer übernommen hat (danach mit Sequenz 1 weiterlesen; die
+		 * Slot-Größe kann sich geändert haben, siehe getMaxPayloadSize()).
+		 */
+		int read(long seq, ByteBuffer dst)
+		{
+			int base = HEADER_SIZE + (int) ((seq - 1) % slotCount) * slotSize;
+
+			long before = (long) LONG.getAcquire(buffer, base);
+			if (before != seq)
+			{
+				if (before > seq || before == 0 && latestSequence() >= seq) return OVERWRITTEN;
+				return !isWriterActive() && checkReplaced() ? RESTARTED : NOT_READY;
+			}
+
+			int length = buffer.getInt(base + 8);
+			if (length < 0 || length > slotSize - SLOT_HEADER_SIZE)
+			{
+				return OVERWRITTEN;
+			}
+			if (length > dst.remaining())
+			{
+				throw new IllegalArgumentException("destination smaller than payload (" + length + " bytes)");
+			}
+
+			ByteBuffer source = buffer.duplicate();
+			source.position(base + SLOT_HEADER_SIZE);
+			source.limit(base + SLOT_HEADER_SIZE + length);
+			int start = dst.position();
+			dst.put(source);
+
+			VarHandle.loadLoadFence();
+			long after = (long) LONG.getAcquire(buffer, base);
+			if (after != seq)
+			{
+				dst.position(start);
+				return OVERWRITTEN;
+			}
+			return length;
+		}
+
+		private boolean checkReplaced()
+		{
+			long now = System.nanoTime();
+			if (now - lastReopenCheck < REOPEN_INTERVAL_NANOS) return false;
+			lastReopenCheck = now;
+			try
+			{
+				return reopenIfReplaced();
+			}
+			catch (IOException e)
+			{
+				return false;
+			}
+		}
+
+		@Override
+		public void close()
+		{
+			// MappedByteBuffer wird vom GC freigegeben
+		}
+	}
+}
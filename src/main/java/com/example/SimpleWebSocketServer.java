@@ -0,0 +1,123 @@
+package com.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket-Server für Snapshots und Queries. Hängt nicht am Plugin, damit er auch
+ * headless (Lasttest) mit einer beliebigen Snapshot-Quelle laufen kann.
+ */
+@Slf4j
+class SimpleWebSocketServer extends WebSocketServer
+{
+	private final SnapshotBroadcaster broadcaster;
+	private final QueryDispatcher queryDispatcher;
+
+	// Bindet start() den Port, wird onStart gerufen, sonst onError ohne Verbindung
+	private final CountDownLatch startup = new CountDownLatch(1);
+	private volatile boolean started;
+
+	/**
+	 * @param queryDispatcher darf null sein, dann werden eingehende Nachrichten ignoriert
+	 */
+	SimpleWebSocketServer(InetSocketAddress address, List<Draft> drafts, SnapshotBroadcaster broadcaster, QueryDispatcher queryDispatcher)
+	{
+		super(address, drafts);
+		this.broadcaster = broadcaster;
+		this.queryDispatcher = queryDispatcher;
+		setReuseAddr(true);
+	}
+
+	@Override
+	public void onOpen(WebSocket conn, ClientHandshake handshake)
+	{
+		log.info("WebSocket Client verbunden: {}", conn.getRemoteSocketAddress());
+		try
+		{
+			// SENDE NUR DEN CACHE, NICHT buildSnapshot() AUFRUFEN!
+			broadcaster.sendLatest(conn);
+		}
+		catch (Exception e)
+		{
+			log.error("Failed to send initial data", e);
+		}
+	}
+
+	@Override
+	public void onClose(WebSocket conn, int code, String reason, boolean remote)
+	{
+		log.info("WebSocket Client getrennt: {} (Code: {}, Reason: {})",
+			conn.getRemoteSocketAddress(), code, reason);
+		SharedDeflateExtension.release(conn);
+		if (queryDispatcher != null)
+		{
+			queryDispatcher.onClose(conn);
+		}
+	}
+
+	@Override
+	public void onMessage(WebSocket conn, String message)
+	{
+		log.debug("Message: {}", message);
+		if (queryDispatcher != null)
+		{
+			queryDispatcher.onMessage(conn, message);
+		}
+	}
+
+	@Override
+	public void onError(WebSocket conn, Exception ex)
+	{
+		if (conn != null)
+		{
+			log.error("WebSocket Error from {}: {}", conn.getRemoteSocketAddress(), ex.getMessage());
+			// Schließe fehlerhafte Verbindung
+			try
+			{
+				conn.close();
+			}
+			catch (Exception e)
+			{
+				// Ignore
+			}
+		}
+		else if (!started)
+		{
+			// Meist ist der Port belegt; WebSocketLifecycle versucht dann den nächsten
+			log.warn("WebSocket Server konnte Port {} nicht binden: {}", getPort(), ex.getMessage());
+			startup.countDown();
+		}
+		else
+		{
+			log.error("WebSocket Server Error", ex);
+		}
+	}
+
+	@Override
+	public void onStart()
+	{
+		log.info("WebSocket Server bereit auf Port {}", getPort());
+		setConnectionLostTimeout(10);  // 10 Sekunden Timeout
+		started = true;
+		startup.countDown();
+	}
+
+	/**
+	 * Wartet nach start(), bis der Server gebunden hat oder daran gescheitert ist.
+	 *
+	 * @return true, wenn der Server läuft
+	 */
+	boolean awaitStart(long timeoutMillis) throws InterruptedException
+	{
+		startup.await(timeoutMillis, TimeUnit.MILLISECONDS);
+		return started;
+	}
+}
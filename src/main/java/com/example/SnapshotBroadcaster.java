@@ -0,0 +1,197 @@
+package com.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.WebSocket;
+import org.java_websocket.framing.TextFrame;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.zip.Deflater;
+
+/**
+ * Verteilt den kodierten Snapshot an alle WebSocket-Verbindungen. Verbindungen werden pro
+ * Tick nach (Topic-Set, Kompression) gruppiert, pro Gruppe wird genau ein Frame-Inhalt
+ * gebaut und an alle Mitglieder verschickt. Jede Payload wird also höchstens einmal
+ * kodiert und höchstens einmal komprimiert, egal wie viele Verbindungen sie bekommen.
+ * Kodiert wird nur JSON, die Signatur braucht deshalb kein eigenes Encoding-Feld.
+ */
+@Slf4j
+class SnapshotBroadcaster
+{
+	private final IntSupplier compressionLevel;
+	private final Deflater deflater;
+	// Für Verbindungen mit eigenem Topic-Set, nur auf dem Client-Thread
+	private final SnapshotEncoder encoder = new SnapshotEncoder();
+	private final Map<Set<String>, Encoded> byTopics = new HashMap<>();
+
+	private volatile Encoded latest;
+
+	// Bytes vor und nach der Kompression (nur Deflate-Verbindungen) sowie unkomprimiert gesendete Bytes
+	private final AtomicLong deflateInputBytes = new AtomicLong();
+	private final AtomicLong deflateOutputBytes = new AtomicLong();
+	private final AtomicLong plainBytes = new AtomicLong();
+	private final AtomicLong compressions = new AtomicLong();
+	private final AtomicLong framesBuilt = new AtomicLong();
+	private final AtomicLong framesReused = new AtomicLong();
+	private volatile int deflateConnections;
+	private volatile int connections;
+	private volatile int groups;
+
+	SnapshotBroadcaster(IntSupplier compressionLevel)
+	{
+		this.compressionLevel = compressionLevel;
+		this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		this.latest = new Encoded(ByteBuffer.wrap(new byte[]{'{', '}'}).asReadOnlyBuffer());
+	}
+
+	/**
+	 * Läuft auf dem Client-Thread, einmal pro Tick.
+	 *
+	 * @param snapshot der Snapshot, aus dem payload kodiert wurde; für Verbindungen mit eigenem Topic-Set
+	 * @param payload  der komplette, bereits kodierte Snapshot
+	 */
+	void broadcast(Collection<WebSocket> conns, Map<String, Object> snapshot, ByteBuffer payload)
+	{
+		Encoded full = new Encoded(payload);
+		latest = full;
+
+		int open = 0;
+		int deflate = 0;
+		int sent = 0;
+		for (WebSocket conn : conns)
+		{
+			if (!conn.isOpen()) continue;
+			open++;
+
+			Subscription subscription = Subscription.of(conn);
+			if (!subscription.isDue()) continue;
+
+			Encoded encoded = subscription.topics == null ? full
+				: byTopics.computeIfAbsent(subscription.topics, topics -> new Encoded(encoder.encode(Subscription.filter(snapshot, topics))));
+			if (send(conn, encoded))
+			{
+				encoded.sentDeflated = true;
+				deflate++;
+			}
+			else
+			{
+				encoded.sentRaw = true;
+			}
+			sent++;
+		}
+
+		// Eine Gruppe je benutzter Kombination aus Topic-Set und Kompression
+		int groupCount = full.groups();
+		for (Encoded encoded : byTopics.values())
+		{
+			groupCount += encoded.groups();
+		}
+		byTopics.clear();
+
+		connections = open;
+		deflateConnections = deflate;
+		groups = groupCount;
+		framesBuilt.addAndGet(groupCount);
+		framesReused.addAndGet(sent - groupCount);
+	}
+
+	/**
+	 * Letzten Stand an eine neue Verbindung schicken (WebSocket-Thread).
+	 */
+	void sendLatest(WebSocket conn)
+	{
+		send(conn, latest);
+	}
+
+	private boolean send(WebSocket conn, Encoded encoded)
+	{
+		ByteBuffer raw = encoded.raw;
+		if (SharedDeflateExtension.isNegotiated(conn))
+		{
+			ByteBuffer deflated = deflated(encoded);
+			conn.sendFrame(frame(deflated, true));
+			deflateInputBytes.addAndGet(raw.remaining());
+			deflateOutputBytes.addAndGet(deflated.remaining());
+			return true;
+		}
+
+		conn.sendFrame(frame(raw, false));
+		plainBytes.addAndGet(raw.remaining());
+		return false;
+	}
+
+	private ByteBuffer deflated(Encoded encoded)
+	{
+		ByteBuffer deflated = encoded.deflated;
+		if (deflated == null)
+		{
+			synchronized (this)
+			{
+				deflated = encoded.deflated;
+				if (deflated == null)
+				{
+					deflater.setLevel(compressionLevel.getAsInt());
+					deflated = SharedDeflateExtension.compress(deflater, encoded.raw);
+					encoded.deflated = deflated;
+					compressions.incrementAndGet();
+				}
+			}
+		}
+		return deflated;
+	}
+
+	private static TextFrame frame(ByteBuffer payload, boolean compressed)
+	{
+		// Eigener Frame pro Verbindung, die Bytes selbst werden geteilt; duplicate() nur,
+		// weil das Senden die Position des Puffers weiterschiebt
+		TextFrame frame = new TextFrame();
+		frame.setPayload(payload.duplicate());
+		frame.setFin(true);
+		frame.setRSV1(compressed);
+		return frame;
+	}
+
+	Map<String, Object> getMetrics()
+	{
+		long in = deflateInputBytes.get();
+		long out = deflateOutputBytes.get();
+
+		Map<String, Object> m = new HashMap<>();
+		m.put("connections", connections);
+		m.put("deflate_connections", deflateConnections);
+		m.put("bytes_uncompressed", in);
+		m.put("bytes_compressed", out);
+		m.put("bytes_plain", plainBytes.get());
+		m.put("compression_ratio", in == 0 ? null : (double) out / in);
+		m.put("compressions", compressions.get());
+		m.put("groups", groups);
+		m.put("frames_built", framesBuilt.get());
+		m.put("frames_reused", framesReused.get());
+		return m;
+	}
+
+	private static class Encoded
+	{
+		final ByteBuffer raw;
+		volatile ByteBuffer deflated;
+
+		// Nur im Broadcast-Durchlauf gesetzt, nicht von sendLatest
+		boolean sentRaw;
+		boolean sentDeflated;
+
+		Encoded(ByteBuffer raw)
+		{
+			this.raw = raw;
+		}
+
+		int groups()
+		{
+			return (sentRaw ? 1 : 0) + (sentDeflated ? 1 : 0);
+		}
+	}
+}
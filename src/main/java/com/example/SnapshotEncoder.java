@@ -0,0 +1,23 @@
+package com.example;
+
+import com.google.gson.Gson;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Serialisiert den Snapshot genau einmal pro Tick zu UTF-8 JSON. Das Ergebnis wird
+ * von allen Transports (WebSocket, Shared Memory) gemeinsam benutzt und darf daher
+ * nicht verändert werden; jeder Leser arbeitet mit duplicate().
+ */
+class SnapshotEncoder
+{
+	private final Gson gson = new Gson();
+
+	ByteBuffer encode(Map<String, Object> snapshot)
+	{
+		byte[] bytes = gson.toJson(snapshot).getBytes(StandardCharsets.UTF_8);
+		return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+	}
+}
@@ -0,0 +1,120 @@
+package com.example;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.java_websocket.WebSocket;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Was eine Verbindung vom Snapshot bekommt: alle oder nur bestimmte Topics (Top-Level-Keys)
+ * und in welchem Takt. Hängt als Attachment an der WebSocket-Verbindung und wird per
+ * {"id": "1", "type": "subscribe", "topics": ["player", "willow_trees"], "every": 2}
+ * ersetzt. Ohne "topics" gibt es alle Topics, "timestamp" ist immer dabei. Gültig sind die
+ * festen TOPICS und die Topics der Kategorien aus der CategoryRegistry.
+ *
+ * Hinweis: player_delta und lifecycle_events beziehen sich auf den vorherigen Snapshot des
+ * Plugins. Wer "every" > 1 nutzt, verpasst die Änderungen der übersprungenen Snapshots und
+ * sollte "player" bzw. die Kategorie-Topics (mit "state" und "ticks_in_state") abonnieren.
+ * Die volle "player"-Map steht ohne "topics" (und im Shared Memory Ring) nur in jedem
+ * zehnten Snapshot, dazwischen gilt player_delta; ausdrücklich abonniert kommt sie immer.
+ */
+class Subscription
+{
+	// Feste Topics; die der Objekt-Kategorien kommen aus der CategoryRegistry
+	static final Set<String> TOPICS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+		"player", "player_delta", "lifecycle_events", "bank_count", "npcs", "ground_items", "inventory",
+		"inventory_count", "inventory_full", "chat_messages", "metrics", "stats", "timestamp")));
+
+	static final int MAX_EVERY = 100;
+
+	private static final Subscription ALL = new Subscription(null, 1);
+
+	// null = alle Topics; sonst sortiert und unveränderlich, taugt damit als Gruppen-Schlüssel
+	final Set<String> topics;
+	final int every;
+
+	// Nur auf dem Client-Thread
+	private int skipped;
+
+	private Subscription(Set<String> topics, int every)
+	{
+		this.topics = topics;
+		this.every = every;
+	}
+
+	static Subscription of(WebSocket conn)
+	{
+		Object attachment = conn.getAttachment();
+		return attachment instanceof Subscription ? (Subscription) attachment : ALL;
+	}
+
+	static Subscription parse(JsonObject request, Set<String> categoryTopics)
+	{
+		int every = request.has("every") ? request.get("every").getAsInt() : 1;
+		if (every < 1 || every > MAX_EVERY)
+		{
+			throw new IllegalArgumentException("every must be between 1 and " + MAX_EVERY);
+		}
+
+		if (!request.has("topics") || request.get("topics").isJsonNull())
+		{
+			return every == 1 ? ALL : new Subscription(null, every);
+		}
+
+		Set<String> topics = new TreeSet<>();
+		for (JsonElement element : request.getAsJsonArray("topics"))
+		{
+			String topic = element.getAsString();
+			if (!TOPICS.contains(topic) && !categoryTopics.contains(topic))
+			{
+				throw new IllegalArgumentException("unknown topic: " + topic);
+			}
+			topics.add(topic);
+		}
+		return new Subscription(Collections.unmodifiableSet(topics), every);
+	}
+
+	/**
+	 * Einmal pro Broadcast aufrufen; true, wenn die Verbindung diesmal dran ist.
+	 */
+	boolean isDue()
+	{
+		if (++skipped >= every)
+		{
+			skipped = 0;
+			return true;
+		}
+		return false;
+	}
+
+	static Map<String, Object> filter(Map<String, Object> snapshot, Set<String> topics)
+	{
+		Map<String, Object> filtered = new HashMap<>();
+		for (String topic : topics)
+		{
+			Object value = snapshot.get(topic);
+			if (value != null)
+			{
+				filtered.put(topic, value);
+			}
+		}
+		filtered.put("timestamp", snapshot.get("timestamp"));
+		return filtered;
+	}
+
+	Map<String, Object> toMap()
+	{
+		// Ohne "topics" in der Antwort gilt die Subscription für alle Topics
+		Map<String, Object> m = new HashMap<>();
+		m.put("topics", topics);
+		m.put("every", every);
+		return m;
+	}
+}
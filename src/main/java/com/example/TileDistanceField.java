@@ -0,0 +1,202 @@
+package com.example;
+
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Laufdistanz in Tiles vom Spieler zu jedem Tile der Szene, per Breitensuche über die
+ * Kollisionsdaten (8 Richtungen, Diagonalen nach den Regeln des Clients). Neu berechnet
+ * wird nur, wenn sich das Start-Tile, die Ebene oder die Kollisionsdaten geändert haben;
+ * Queue, Distanzen und die Kopie der Kollisionsdaten werden wiederverwendet.
+ *
+ * Nur auf dem Client-Thread benutzen.
+ */
+class TileDistanceField
+{
+	static final int UNREACHABLE = -1;
+
+	private static final int FULL = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+	private static final int NORTH = CollisionDataFlag.BLOCK_MOVEMENT_NORTH;
+	private static final int EAST = CollisionDataFlag.BLOCK_MOVEMENT_EAST;
+	private static final int SOUTH = CollisionDataFlag.BLOCK_MOVEMENT_SOUTH;
+	private static final int WEST = CollisionDataFlag.BLOCK_MOVEMENT_WEST;
+	private static final int NORTH_EAST = CollisionDataFlag.BLOCK_MOVEMENT_NORTH_EAST;
+	private static final int SOUTH_EAST = CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_EAST;
+	private static final int SOUTH_WEST = CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_WEST;
+	private static final int NORTH_WEST = CollisionDataFlag.BLOCK_MOVEMENT_NORTH_WEST;
+
+	private final int size;
+	// Index x * size + y
+	private final int[] distances;
+	private final int[] queue;
+	private final int[][] flags;
+
+	private boolean valid;
+	private int originX;
+	private int originY;
+	private int originPlane;
+	private long recomputations;
+
+	TileDistanceField()
+	{
+		this(Constants.SCENE_SIZE);
+	}
+
+	TileDistanceField(int size)
+	{
+		this.size = size;
+		distances = new int[size * size];
+		queue = new int[size * size];
+		flags = new int[size][size];
+		Arrays.fill(distances, UNREACHABLE);
+	}
+
+	/**
+	 * Übernimmt die aktuellen Kollisionsdaten und rechnet bei Bedarf neu.
+	 *
+	 * @return true, wenn neu gerechnet wurde
+	 */
+	boolean update(int[][] collisionFlags, int plane, int startX, int startY)
+	{
+		boolean collisionChanged = copyFlags(collisionFlags);
+		if (valid && !collisionChanged && plane == originPlane && startX == originX && startY == originY)
+		{
+			return false;
+		}
+
+		originX = startX;
+		originY = startY;
+		originPlane = plane;
+		valid = true;
+		compute();
+		recomputations++;
+		return true;
+	}
+
+	/**
+	 * Ohne Kollisionsdaten oder Spieler: alle Tiles unerreichbar bis zum nächsten update().
+	 */
+	void invalidate()
+	{
+		if (!valid) return;
+		valid = false;
+		Arrays.fill(distances, UNREACHABLE);
+	}
+
+	/**
+	 * Schritte bis zum Tile, UNREACHABLE wenn nicht erreichbar oder außerhalb der Szene.
+	 */
+	int distanceTo(int x, int y)
+	{
+		if (x < 0 || y < 0 || x >= size || y >= size) return UNREACHABLE;
+		return distances[x * size + y];
+	}
+
+	/**
+	 * Schritte, bis der Spieler auf dem Tile eines Objekts oder gerade daneben steht. Objekte
+	 * blockieren ihr eigenes Tile meist und lassen sich nicht diagonal benutzen, deshalb zählt
+	 * das beste der 4 geraden Nachbar-Tiles, sofern keine Wand zwischen ihm und dem Objekt ist.
+	 */
+	int distanceToObject(int x, int y)
+	{
+		int best = distanceTo(x, y);
+		best = closer(best, x - 1, y, EAST);
+		best = closer(best, x + 1, y, WEST);
+		best = closer(best, x, y - 1, NORTH);
+		best = closer(best, x, y + 1, SOUTH);
+		return best;
+	}
+
+	// wall = Flag auf dem Nachbar-Tile, das die Seite zum Objekt hin sperrt
+	private int closer(int best, int x, int y, int wall)
+	{
+		int d = distanceTo(x, y);
+		if (d == UNREACHABLE || (flags[x][y] & wall) != 0) return best;
+		return best == UNREACHABLE || d < best ? d : best;
+	}
+
+	long getRecomputations()
+	{
+		return recomputations;
+	}
+
+	// Kopiert die Flags und meldet, ob sich etwas geändert hat; der Client ändert sie in place
+	private boolean copyFlags(int[][] collisionFlags)
+	{
+		boolean changed = false;
+		int width = Math.min(size, collisionFlags.length);
+		for (int x = 0; x < width; x++)
+		{
+			int[] src = collisionFlags[x];
+			int[] dst = flags[x];
+			int height = Math.min(size, src.length);
+			for (int y = 0; y < height; y++)
+			{
+				if (dst[y] != src[y])
+				{
+					dst[y] = src[y];
+					changed = true;
+				}
+			}
+		}
+		return changed;
+	}
+
+	private void compute()
+	{
+		Arrays.fill(distances, UNREACHABLE);
+		if (originX < 0 || originY < 0 || originX >= size || originY >= size) return;
+
+		int head = 0;
+		int tail = 0;
+		distances[originX * size + originY] = 0;
+		queue[tail++] = originX * size + originY;
+
+		while (head < tail)
+		{
+			int index = queue[head++];
+			int x = index / size;
+			int y = index % size;
+			int next = distances[index] + 1;
+
+			boolean west = x > 0 && (flags[x - 1][y] & (FULL | EAST)) == 0;
+			boolean east = x < size - 1 && (flags[x + 1][y] & (FULL | WEST)) == 0;
+			boolean south = y > 0 && (flags[x][y - 1] & (FULL | NORTH)) == 0;
+			boolean north = y < size - 1 && (flags[x][y + 1] & (FULL | SOUTH)) == 0;
+
+			if (west) tail = visit(x - 1, y, next, tail);
+			if (east) tail = visit(x + 1, y, next, tail);
+			if (south) tail = visit(x, y - 1, next, tail);
+			if (north) tail = visit(x, y + 1, next, tail);
+
+			// Diagonal nur, wenn auch beide angrenzenden geraden Schritte möglich sind
+			if (west && south && (flags[x - 1][y - 1] & (FULL | NORTH | EAST | NORTH_EAST)) == 0)
+			{
+				tail = visit(x - 1, y - 1, next, tail);
+			}
+			if (east && south && (flags[x + 1][y - 1] & (FULL | NORTH | WEST | NORTH_WEST)) == 0)
+			{
+				tail = visit(x + 1, y - 1, next, tail);
+			}
+			if (west && north && (flags[x - 1][y + 1] & (FULL | SOUTH | EAST | SOUTH_EAST)) == 0)
+			{
+				tail = visit(x - 1, y + 1, next, tail);
+			}
+			if (east && north && (flags[x + 1][y + 1] & (FULL | SOUTH | WEST | SOUTH_WEST)) == 0)
+			{
+				tail = visit(x + 1, y + 1, next, tail);
+			}
+		}
+	}
+
+	private int visit(int x, int y, int distance, int tail)
+	{
+		int index = x * size + y;
+		if (distances[index] != UNREACHABLE) return tail;
+		distances[index] = distance;
+		queue[tail] = index;
+		return tail + 1;
+	}
+}
@@ -0,0 +1,324 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Die pro Tick gefundenen Objekte (Kategorien aus der CategoryRegistry) spaltenweise in primitiven
+ * Arrays. Die Arrays wachsen bei Bedarf und werden danach Tick für Tick wiederverwendet,
+ * ein Tick erzeugt also keine Objekte pro Fund. Referenzen auf GameObjects werden bewusst
+ * nicht gehalten; wer das Objekt selbst braucht, sucht es über Szenen-Koordinaten und ID
+ * in der aktuellen Szene (siehe WillowFinderOverlay).
+ *
+ * Nur auf dem Client-Thread benutzen.
+ */
+class TrackedObjects
+{
+	// Kategorie = Index in der CategoryRegistry
+	static final int MAX_CATEGORIES = 64;
+
+	// Zustände, NONE für Kategorien ohne Zustand
+	static final byte NONE = 0;
+	static final byte UNKNOWN = 1;
+	static final byte FULL = 2;
+	static final byte CHOPPED = 3;
+	static final byte STUMP = 4;
+	static final byte MEDIUM = 5;
+	static final byte LOW = 6;
+	static final byte DEPLETED = 7;
+
+	// Canvas-Koordinate von Objekten, die nicht auf den Bildschirm projiziert werden
+	static final int NO_CANVAS = Integer.MIN_VALUE;
+
+	private static final String[] STATE_NAMES = {null, "unknown", "full", "chopped", "stump", "medium", "low", "depleted"};
+
+	private int[] id;
+	private byte[] category;
+	private byte[] state;
+	private int[] worldX;
+	private int[] worldY;
+	private byte[] plane;
+	private int[] sceneX;
+	private int[] sceneY;
+	private int[] canvasX;
+	private int[] canvasY;
+	private int[] distance;
+	private int[] walkDistance;
+	private int size;
+
+	// Zeilen je Kategorie, damit Leser nicht über alle Zeilen filtern müssen
+	private final View[] views = new View[MAX_CATEGORIES];
+
+	TrackedObjects()
+	{
+		this(64);
+	}
+
+	TrackedObjects(int capacity)
+	{
+		allocate(capacity);
+		for (byte c = 0; c < MAX_CATEGORIES; c++)
+		{
+			views[c] = new View(c);
+		}
+	}
+
+	/**
+	 * Hängt eine Zeile an und liefert ihren Index.
+	 */
+	int add(int objectId, byte objectCategory, byte objectState, int wx, int wy, int wplane,
+		int sx, int sy, int cx, int cy, int dist, int walkDist)
+	{
+		if (size == id.length)
+		{
+			grow();
+		}
+
+		int row = size++;
+		id[row] = objectId;
+		category[row] = objectCategory;
+		state[row] = objectState;
+		worldX[row] = wx;
+		worldY[row] = wy;
+		plane[row] = (byte) wplane;
+		sceneX[row] = sx;
+		sceneY[row] = sy;
+		canvasX[row] = cx;
+		canvasY[row] = cy;
+		distance[row] = dist;
+		walkDistance[row] = walkDist;
+		views[objectCategory].add(row);
+		return row;
+	}
+
+	void clear()
+	{
+		size = 0;
+		for (View view : views)
+		{
+			view.size = 0;
+		}
+	}
+
+	/**
+	 * Ordnet die Zeilen nach einer neuen Registry neu zu, ohne neuen Scan: Kategorie und
+	 * Zustand kommen wieder aus der ID, Zeilen mit nicht mehr registrierter ID fallen weg.
+	 *
+	 * @return Anzahl der Zeilen, die sich geändert haben oder weggefallen sind
+	 */
+	int reindex(CategoryRegistry registry)
+	{
+		for (View view : views)
+		{
+			view.size = 0;
+		}
+
+		int changed = 0;
+		int kept = 0;
+		for (int row = 0; row < size; row++)
+		{
+			int newCategory = registry.categoryOf(id[row]);
+			if (newCategory < 0)
+			{
+				changed++;
+				continue;
+			}
+
+			byte newState = registry.stateOf(id[row]);
+			if (newCategory != category[row] || newState != state[row])
+			{
+				changed++;
+			}
+			if (kept != row)
+			{
+				move(row, kept);
+			}
+			category[kept] = (byte) newCategory;
+			state[kept] = newState;
+			views[newCategory].add(kept);
+			kept++;
+		}
+		size = kept;
+		return changed;
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	View view(byte objectCategory)
+	{
+		return views[objectCategory];
+	}
+
+	int getId(int row)
+	{
+		return id[row];
+	}
+
+	byte getCategory(int row)
+	{
+		return category[row];
+	}
+
+	byte getState(int row)
+	{
+		return state[row];
+	}
+
+	int getWorldX(int row)
+	{
+		return worldX[row];
+	}
+
+	int getWorldY(int row)
+	{
+		return worldY[row];
+	}
+
+	int getPlane(int row)
+	{
+		return plane[row];
+	}
+
+	int getSceneX(int row)
+	{
+		return sceneX[row];
+	}
+
+	int getSceneY(int row)
+	{
+		return sceneY[row];
+	}
+
+	int getCanvasX(int row)
+	{
+		return canvasX[row];
+	}
+
+	int getCanvasY(int row)
+	{
+		return canvasY[row];
+	}
+
+	boolean hasCanvas(int row)
+	{
+		return canvasX[row] != NO_CANVAS;
+	}
+
+	int getDistance(int row)
+	{
+		return distance[row];
+	}
+
+	/**
+	 * Laufdistanz in Tiles, TileDistanceField.UNREACHABLE wenn nicht erreichbar.
+	 */
+	int getWalkDistance(int row)
+	{
+		return walkDistance[row];
+	}
+
+	static String stateName(byte objectState)
+	{
+		return STATE_NAMES[objectState];
+	}
+
+	/**
+	 * Zustand zum Namen aus stateName(), für die Config.
+	 */
+	static byte stateByName(String name)
+	{
+		for (byte s = UNKNOWN; s < STATE_NAMES.length; s++)
+		{
+			if (STATE_NAMES[s].equals(name)) return s;
+		}
+		throw new IllegalArgumentException("unbekannter Zustand " + name);
+	}
+
+	private void move(int from, int to)
+	{
+		id[to] = id[from];
+		worldX[to] = worldX[from];
+		worldY[to] = worldY[from];
+		plane[to] = plane[from];
+		sceneX[to] = sceneX[from];
+		sceneY[to] = sceneY[from];
+		canvasX[to] = canvasX[from];
+		canvasY[to] = canvasY[from];
+		distance[to] = distance[from];
+		walkDistance[to] = walkDistance[from];
+	}
+
+	private void allocate(int capacity)
+	{
+		id = new int[capacity];
+		category = new byte[capacity];
+		state = new byte[capacity];
+		worldX = new int[capacity];
+		worldY = new int[capacity];
+		plane = new byte[capacity];
+		sceneX = new int[capacity];
+		sceneY = new int[capacity];
+		canvasX = new int[capacity];
+		canvasY = new int[capacity];
+		distance = new int[capacity];
+		walkDistance = new int[capacity];
+	}
+
+	private void grow()
+	{
+		int capacity = id.length * 2;
+		id = Arrays.copyOf(id, capacity);
+		category = Arrays.copyOf(category, capacity);
+		state = Arrays.copyOf(state, capacity);
+		worldX = Arrays.copyOf(worldX, capacity);
+		worldY = Arrays.copyOf(worldY, capacity);
+		plane = Arrays.copyOf(plane, capacity);
+		sceneX = Arrays.copyOf(sceneX, capacity);
+		sceneY = Arrays.copyOf(sceneY, capacity);
+		canvasX = Arrays.copyOf(canvasX, capacity);
+		canvasY = Arrays.copyOf(canvasY, capacity);
+		distance = Arrays.copyOf(distance, capacity);
+		walkDistance = Arrays.copyOf(walkDistance, capacity);
+	}
+
+	/**
+	 * Zeilen einer Kategorie in Fundreihenfolge. Gültig bis zum nächsten clear().
+	 */
+	static class View
+	{
+		final byte category;
+		private int[] rows = new int[16];
+		private int size;
+
+		private View(byte category)
+		{
+			this.category = category;
+		}
+
+		private void add(int row)
+		{
+			if (size == rows.length)
+			{
+				rows = Arrays.copyOf(rows, rows.length * 2);
+			}
+			rows[size++] = row;
+		}
+
+		int size()
+		{
+			return size;
+		}
+
+		boolean isEmpty()
+		{
+			return size == 0;
+		}
+
+		int row(int i)
+		{
+			return rows[i];
+		}
+	}
+}
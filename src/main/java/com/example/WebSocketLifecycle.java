@@ -0,0 +1,218 @@
+package com.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startet und stoppt den WebSocket-Server auf einem eigenen Thread, damit startUp/shutDown
+ * und Config-Änderungen nie auf Netzwerk warten. Aufträge laufen der Reihe nach ab, ein
+ * Neustart ist also einfach stop() gefolgt von start().
+ *
+ * Ist der gewünschte Port belegt, werden die nächsten PORT_ATTEMPTS - 1 Ports probiert. Der
+ * tatsächlich gebundene Port steht in getBoundPort() und in der Port-Datei, damit Clients
+ * ihn finden; beim Stoppen werden offene Verbindungen höchstens DRAIN_TIMEOUT_MS lang
+ * sauber geschlossen.
+ *
+ * close() gibt den Thread nach dem letzten Stop frei. Eine neue Instanz bekommt die alte
+ * mit und wartet auf ihrem Thread, bis diese fertig ist, bevor sie bindet.
+ */
+@Slf4j
+class WebSocketLifecycle
+{
+	static final int PORT_ATTEMPTS = 10;
+	static final int BIND_TIMEOUT_MS = 5000;
+	static final int DRAIN_TIMEOUT_MS = 2000;
+
+	private final SnapshotBroadcaster broadcaster;
+	private final QueryDispatcher queryDispatcher;
+	// null = keine Port-Datei schreiben
+	private final File portFile;
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r ->
+	{
+		Thread thread = new Thread(r, "willowfinder-websocket");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile SimpleWebSocketServer server;
+	private volatile int boundPort = -1;
+
+	/**
+	 * @param previous eine geschlossene Vorgängerin, deren Stop noch laufen kann, oder null
+	 */
+	WebSocketLifecycle(SnapshotBroadcaster broadcaster, QueryDispatcher queryDispatcher, File portFile, WebSocketLifecycle previous)
+	{
+		this.broadcaster = broadcaster;
+		this.queryDispatcher = queryDispatcher;
+		this.portFile = portFile;
+		if (previous != null)
+		{
+			executor.execute(() -> previous.awaitClosed(DRAIN_TIMEOUT_MS + BIND_TIMEOUT_MS));
+		}
+	}
+
+	/**
+	 * Kehrt sofort zurück; gebunden wird auf dem Lifecycle-Thread.
+	 */
+	void start(int port, List<Draft> drafts)
+	{
+		if (executor.isShutdown()) return;
+		executor.execute(() -> bind(port, drafts));
+	}
+
+	/**
+	 * Kehrt sofort zurück; offene Verbindungen werden auf dem Lifecycle-Thread geschlossen.
+	 */
+	void stop()
+	{
+		if (executor.isShutdown()) return;
+		executor.execute(this::drain);
+	}
+
+	/**
+	 * Stoppt den Server und beendet danach den Lifecycle-Thread; kehrt sofort zurück.
+	 * Danach nimmt die Instanz keine Aufträge mehr an.
+	 */
+	void close()
+	{
+		stop();
+		executor.shutdown();
+	}
+
+	private void awaitClosed(long timeoutMillis)
+	{
+		try
+		{
+			if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS))
+			{
+				log.warn("Vorheriger WebSocket Server nach {} ms noch nicht gestoppt", timeoutMillis);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	boolean isRunning()
+	{
+		return server != null;
+	}
+
+	/**
+	 * Gebundener Port, -1 wenn der Server nicht läuft.
+	 */
+	int getBoundPort()
+	{
+		return boundPort;
+	}
+
+	Collection<WebSocket> getConnections()
+	{
+		SimpleWebSocketServer current = server;
+		return current != null ? current.getConnections() : Collections.emptyList();
+	}
+
+	private void bind(int port, List<Draft> drafts)
+	{
+		if (server != null) return;
+
+		for (int candidate = port; candidate < port + PORT_ATTEMPTS && candidate <= 65535; candidate++)
+		{
+			SimpleWebSocketServer attempt = new SimpleWebSocketServer(new InetSocketAddress(candidate), drafts, broadcaster, queryDispatcher);
+			attempt.setConnectionLostTimeout(10);  // Timeout nach 10 Sekunden
+			attempt.start();
+			try
+			{
+				if (attempt.awaitStart(BIND_TIMEOUT_MS))
+				{
+					server = attempt;
+					boundPort = attempt.getPort();
+					writePortFile(boundPort);
+					if (boundPort != port)
+					{
+						log.warn("Port {} belegt, WebSocket läuft auf ws://localhost:{}", port, boundPort);
+					}
+					else
+					{
+						log.info("WebSocket läuft auf ws://localhost:{}", boundPort);
+					}
+					return;
+				}
+				attempt.stop(0);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		log.error("WebSocket Server konnte keinen Port zwischen {} und {} binden", port, port + PORT_ATTEMPTS - 1);
+	}
+
+	private void drain()
+	{
+		SimpleWebSocketServer current = server;
+		if (current == null) return;
+
+		server = null;
+		boundPort = -1;
+		deletePortFile();
+		try
+		{
+			// Schickt allen Clients ein Close-Frame und wartet begrenzt auf die Antworten
+			current.stop(DRAIN_TIMEOUT_MS, "server stopping");
+			log.info("WebSocket Server gestoppt");
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			log.warn("WebSocket stop unterbrochen");
+		}
+	}
+
+	private void writePortFile(int port)
+	{
+		if (portFile == null) return;
+
+		try
+		{
+			File dir = portFile.getParentFile();
+			if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+			{
+				throw new IOException("cannot create " + dir);
+			}
+			// Erst in eine temporäre Datei, damit Leser nie eine halbe Zahl sehen
+			File tmp = new File(portFile.getPath() + ".tmp");
+			Files.write(tmp.toPath(), (port + "\n").getBytes(StandardCharsets.US_ASCII));
+			Files.move(tmp.toPath(), portFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e)
+		{
+			log.warn("Port-Datei {} konnte nicht geschrieben werden", portFile, e);
+		}
+	}
+
+	private void deletePortFile()
+	{
+		if (portFile != null && portFile.exists() && !portFile.delete())
+		{
+			log.warn("Port-Datei {} konnte nicht gelöscht werden", portFile);
+		}
+	}
+}
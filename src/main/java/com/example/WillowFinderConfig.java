@@ -3,29 +3,19 @@ package com.example;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
-import java.awt.Color;
+import net.runelite.client.config.Range;
 
 @ConfigGroup("willowfinder")
 public interface WillowFinderConfig extends Config
 {
 	@ConfigItem(
-		keyName = "highlightColor",
-		name = "Willow Highlight Farbe",
-		description = "Farbe für Willow Baum Highlights"
+		keyName = "categoryRegistry",
+		name = "Kategorien",
+		description = "Eine Zeile pro Kategorie: topic; art (tree, vein, object); farbe; strichstärke; label; labelfarbe (leer = weiß); ids (id oder id=zustand). Änderungen wirken sofort"
 	)
-	default Color highlightColor()
+	default String categoryRegistry()
 	{
-		return Color.GREEN;
-	}
-
-	@ConfigItem(
-		keyName = "bankHighlightColor",
-		name = "Bank Highlight Farbe",
-		description = "Farbe für Bank Highlights"
-	)
-	default Color bankHighlightColor()
-	{
-		return Color.YELLOW;
+		return CategoryRegistry.DEFAULT;
 	}
 
 	@ConfigItem(
@@ -38,13 +28,174 @@ public interface WillowFinderConfig extends Config
 		return true;
 	}
 
+	@Range(min = 1, max = 500)
+	@ConfigItem(
+		keyName = "maxHighlights",
+		name = "Max. Highlights",
+		description = "Maximale Anzahl gezeichneter Objekte (die nächsten zuerst)"
+	)
+	default int maxHighlights()
+	{
+		return 60;
+	}
+
+	@Range(min = 0, max = 200)
+	@ConfigItem(
+		keyName = "labelDistance",
+		name = "Label Distanz",
+		description = "Distanz-Labels nur bis zu dieser Entfernung (Tiles) zeichnen"
+	)
+	default int labelDistance()
+	{
+		return 20;
+	}
+
+	@Range(min = 0, max = 200)
+	@ConfigItem(
+		keyName = "highlightDistance",
+		name = "Highlight Distanz",
+		description = "Objekte weiter entfernt als diese Anzahl Tiles werden nicht gezeichnet"
+	)
+	default int highlightDistance()
+	{
+		return 50;
+	}
+
 	@ConfigItem(
 		keyName = "enableWebSocket",
 		name = "WebSocket aktivieren",
-		description = "Exportiert Daten via WebSocket (Port 8765)"
+		description = "Exportiert Daten via WebSocket"
 	)
 	default boolean enableWebSocket()
 	{
 		return true;
 	}
-}
\ No newline at end of file
+
+	@Range(min = 1024, max = 65535)
+	@ConfigItem(
+		keyName = "webSocketPort",
+		name = "WebSocket Port",
+		description = "Gewünschter Port; ist er belegt, wird der nächste freie genommen (siehe willowfinder/websocket.port)"
+	)
+	default int webSocketPort()
+	{
+		return 8765;
+	}
+
+	@ConfigItem(
+		keyName = "enableCompression",
+		name = "Kompression erlauben",
+		description = "permessage-deflate für Clients, die es aushandeln (startet den Server neu)"
+	)
+	default boolean enableCompression()
+	{
+		return true;
+	}
+
+	@Range(min = 1, max = 9)
+	@ConfigItem(
+		keyName = "compressionLevel",
+		name = "Kompressionslevel",
+		description = "Deflate-Level 1 (schnell) bis 9 (klein)"
+	)
+	default int compressionLevel()
+	{
+		return 6;
+	}
+
+	@ConfigItem(
+		keyName = "enableSharedMemory",
+		name = "Shared Memory aktivieren",
+		description = "Schreibt Snapshots zusätzlich in einen Ringpuffer (.runelite/willowfinder/snapshots.ring)"
+	)
+	default boolean enableSharedMemory()
+	{
+		return false;
+	}
+
+	@Range(min = 2, max = 256)
+	@ConfigItem(
+		keyName = "sharedMemorySlots",
+		name = "Shared Memory Slots",
+		description = "Anzahl Snapshots im Ringpuffer"
+	)
+	default int sharedMemorySlots()
+	{
+		return 8;
+	}
+
+	// Mit 256 Slots bleibt der Ring so unter 2 GB, mehr kann ein MappedByteBuffer nicht
+	@Range(min = 16, max = 4096)
+	@ConfigItem(
+		keyName = "sharedMemorySlotSizeKb",
+		name = "Shared Memory Slotgröße (KB)",
+		description = "Maximale Größe eines Snapshots im Ringpuffer"
+	)
+	default int sharedMemorySlotSizeKb()
+	{
+		return 256;
+	}
+
+	@ConfigItem(
+		keyName = "npcIdFilter",
+		name = "NPC ID Filter",
+		description = "Kommagetrennte NPC IDs für das npcs Topic (leer = alle)"
+	)
+	default String npcIdFilter()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "groundItemIdFilter",
+		name = "Bodenitem ID Filter",
+		description = "Kommagetrennte Item IDs für das ground_items Topic (leer = alle)"
+	)
+	default String groundItemIdFilter()
+	{
+		return "";
+	}
+
+	@Range(min = 1, max = 256)
+	@ConfigItem(
+		keyName = "maxConcurrentQueries",
+		name = "Max. offene Queries pro Client",
+		description = "Weitere Queries eines Clients werden abgelehnt, bis Antworten raus sind"
+	)
+	default int maxConcurrentQueries()
+	{
+		return 8;
+	}
+
+	@Range(min = 1, max = 1000)
+	@ConfigItem(
+		keyName = "maxQueriesPerTick",
+		name = "Max. Queries pro Tick",
+		description = "Budget an Queries, die pro Tick auf dem Client-Thread ausgeführt werden"
+	)
+	default int maxQueriesPerTick()
+	{
+		return 32;
+	}
+
+	@ConfigItem(
+		keyName = "enableLoadShedding",
+		name = "Lastabwurf aktivieren",
+		description = "Reduziert Scan-Radius, Snapshot-Takt und Diagnose-Daten, wenn ein Tick das Budget überschreitet"
+	)
+	default boolean enableLoadShedding()
+	{
+		return true;
+	}
+
+	@Range(min = 1, max = 100)
+	@ConfigItem(
+		keyName = "tickBudgetMs",
+		name = "Tick-Budget (ms)",
+		description = "Erlaubte Rechenzeit des Plugins pro Tick auf dem Client-Thread"
+	)
+	default int tickBudgetMs()
+	{
+		return 5;
+	}
+}
@@ -1,79 +1,240 @@
 package com.example;
 
 import net.runelite.api.Client;
+import net.runelite.api.Constants;
+import net.runelite.api.GameObject;
+import net.runelite.api.Tile;
+import net.runelite.api.TileObject;
+import net.runelite.api.WallObject;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
 
 import javax.inject.Inject;
 import java.awt.*;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 
 public class WillowFinderOverlay extends Overlay
 {
-    private final Client client;
-    private final WillowFinderPlugin plugin;
-    private final WillowFinderConfig config;
-
-    @Inject
-    public WillowFinderOverlay(Client client, WillowFinderPlugin plugin, WillowFinderConfig config)
-    {
-        this.client = client;
-        this.plugin = plugin;
-        this.config = config;
-        setPosition(OverlayPosition.DYNAMIC);
-        setLayer(OverlayLayer.ABOVE_SCENE);
-    }
-
-    @Override
-    public Dimension render(Graphics2D graphics)
-    {
-        for (WillowFinderPlugin.WillowTreeData tree : plugin.getWillowTrees())
-        {
-            // Färbe den Baum
-            Shape clickbox = tree.gameObject.getClickbox();
-            if (clickbox != null)
-            {
-                graphics.setColor(config.highlightColor());
-                graphics.setStroke(new BasicStroke(2));
-                graphics.draw(clickbox);
-            }
-
-            // Zeige Distanz
-            if (config.showDistance())
-            {
-                String text = tree.distance + " tiles";
-                Point textLocation = tree.canvasPoint;
-
-                graphics.setColor(Color.BLACK);
-                graphics.drawString(text, textLocation.x + 1, textLocation.y + 1);
-                graphics.setColor(Color.WHITE);
-                graphics.drawString(text, textLocation.x, textLocation.y);
-            }
-        }
-
-		// Banks (mit gelber Farbe)
-		for (WillowFinderPlugin.BankData bank : plugin.getBanks())
+	// Objekte knapp außerhalb des Viewports trotzdem zeichnen (Clickbox ragt über den Anker hinaus)
+	private static final int CULL_MARGIN = 64;
+
+	private static final Comparator<RenderEntry> BY_DISTANCE = Comparator.comparingInt(e -> e.distance);
+
+	private final Client client;
+	private final WillowFinderPlugin plugin;
+	private final WillowFinderConfig config;
+	private final ClickboxCache clickboxCache;
+
+	// Wiederverwendeter Pool, wird einmal pro Tick in rebuild() befüllt
+	private RenderEntry[] entries = new RenderEntry[64];
+	private int entryCount;
+
+	// Label-Texte pro Suffix und Distanz, damit nicht jeder Tick neue Strings baut
+	private final Map<String, String[]> labelCache = new HashMap<>();
+
+	private final Rectangle viewport = new Rectangle();
+
+	@Inject
+	public WillowFinderOverlay(Client client, WillowFinderPlugin plugin, WillowFinderConfig config, ClickboxCache clickboxCache)
+	{
+		this.client = client;
+		this.plugin = plugin;
+		this.config = config;
+		this.clickboxCache = clickboxCache;
+		setPosition(OverlayPosition.DYNAMIC);
+		setLayer(OverlayLayer.ABOVE_SCENE);
+	}
+
+	/**
+	 * Baut die Render-Liste aus dem aktuellen Scan neu auf. Wird einmal pro Tick
+	 * auf dem Client-Thread aufgerufen; render() liest nur noch diese Liste.
+	 *
+	 * @param registry die Registry, mit der die Zeilen in TrackedObjects eingetragen sind
+	 */
+	void rebuild(CategoryRegistry registry)
+	{
+		entryCount = 0;
+
+		int maxDistance = config.highlightDistance();
+		int labelDistance = config.showDistance() ? config.labelDistance() : -1;
+		// Farben und Stroke pro Kategorie kommen aus der Registry, Strokes dort einmal angelegt
+
+		TrackedObjects objects = plugin.getTrackedObjects();
+		for (int row = 0; row < objects.size(); row++)
+		{
+			// Hinter der Kamera: nichts zu zeichnen, belegt auch keinen Highlight-Platz
+			int distance = objects.getDistance(row);
+			if (distance > maxDistance || !objects.hasCanvas(row)) continue;
+
+			// Nur zur Sicherheit, Zeilen und Registry stammen aus demselben Tick
+			byte category = objects.getCategory(row);
+			if (category >= registry.size()) continue;
+			CategoryRegistry.Category c = registry.get(category);
+
+			String label = null;
+			if (distance <= labelDistance)
+			{
+				label = label(c.label, distance);
+			}
+			add(objects, row, c.color, c.stroke, c.labelColor, label);
+		}
+
+		// Level of Detail: nur die nächsten N Objekte zeichnen
+		Arrays.sort(entries, 0, entryCount, BY_DISTANCE);
+		int max = config.maxHighlights();
+		if (entryCount > max)
+		{
+			entryCount = max;
+		}
+	}
+
+	void clear()
+	{
+		entryCount = 0;
+	}
+
+	private void add(TrackedObjects objects, int row, Color color, Stroke stroke, Color labelColor, String label)
+	{
+		if (entryCount == entries.length)
+		{
+			entries = Arrays.copyOf(entries, entries.length * 2);
+		}
+
+		RenderEntry entry = entries[entryCount];
+		if (entry == null)
+		{
+			entry = new RenderEntry();
+			entries[entryCount] = entry;
+		}
+		entryCount++;
+
+		entry.id = objects.getId(row);
+		entry.plane = objects.getPlane(row);
+		entry.sceneX = objects.getSceneX(row);
+		entry.sceneY = objects.getSceneY(row);
+		entry.distance = objects.getDistance(row);
+		entry.color = color;
+		entry.stroke = stroke;
+		entry.labelColor = labelColor;
+		entry.label = label;
+	}
+
+	private String label(String type, int distance)
+	{
+		String[] cached = labelCache.computeIfAbsent(type, k -> new String[128]);
+		if (distance < 0 || distance >= cached.length)
 		{
-			Shape clickbox = bank.gameObject.getClickbox();
+			return buildLabel(type, distance);
+		}
+
+		String text = cached[distance];
+		if (text == null)
+		{
+			text = buildLabel(type, distance);
+			cached[distance] = text;
+		}
+		return text;
+	}
+
+	private static String buildLabel(String type, int distance)
+	{
+		return type.isEmpty() ? distance + " tiles" : distance + " tiles (" + type + ")";
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		if (entryCount == 0) return null;
+
+		viewport.setBounds(
+			client.getViewportXOffset() - CULL_MARGIN,
+			client.getViewportYOffset() - CULL_MARGIN,
+			client.getViewportWidth() + CULL_MARGIN * 2,
+			client.getViewportHeight() + CULL_MARGIN * 2);
+		clickboxCache.beginFrame();
+		Tile[][][] tiles = client.getScene().getTiles();
+
+		Stroke originalStroke = graphics.getStroke();
+		for (int i = 0; i < entryCount; i++)
+		{
+			RenderEntry entry = entries[i];
+
+			// Objekt frisch aus der Szene holen, ist es inzwischen weg, wird nichts gezeichnet
+			TileObject object = resolve(tiles, entry);
+			if (object == null) continue;
+
+			// Culling über den Anker-Punkt, bevor die teure Clickbox berechnet wird
+			net.runelite.api.Point anchor = clickboxCache.getAnchor(object);
+			if (anchor == null || !viewport.contains(anchor.getX(), anchor.getY())) continue;
+
+			Shape clickbox = clickboxCache.getClickbox(object);
 			if (clickbox != null)
 			{
-				graphics.setColor(config.bankHighlightColor());
-				graphics.setStroke(new BasicStroke(3));
+				graphics.setColor(entry.color);
+				graphics.setStroke(entry.stroke);
 				graphics.draw(clickbox);
 			}
 
-			if (config.showDistance())
+			if (entry.label != null)
 			{
-				String text = bank.distance + " tiles (" + bank.type + ")";
-				Point textLocation = bank.canvasPoint;
-				
 				graphics.setColor(Color.BLACK);
-				graphics.drawString(text, textLocation.x + 1, textLocation.y + 1);
-				graphics.setColor(Color.YELLOW);
-				graphics.drawString(text, textLocation.x, textLocation.y);
+				graphics.drawString(entry.label, anchor.getX() + 1, anchor.getY() + 1);
+				graphics.setColor(entry.labelColor);
+				graphics.drawString(entry.label, anchor.getX(), anchor.getY());
 			}
 		}
+		graphics.setStroke(originalStroke);
+
+		return null;
+	}
+
+	private static TileObject resolve(Tile[][][] tiles, RenderEntry entry)
+	{
+		if (entry.plane < 0 || entry.plane >= tiles.length
+			|| entry.sceneX < 0 || entry.sceneX >= Constants.SCENE_SIZE
+			|| entry.sceneY < 0 || entry.sceneY >= Constants.SCENE_SIZE)
+		{
+			return null;
+		}
+
+		Tile tile = tiles[entry.plane][entry.sceneX][entry.sceneY];
+		if (tile == null) return null;
 
+		WallObject wall = tile.getWallObject();
+		if (wall != null && wall.getId() == entry.id)
+		{
+			return wall;
+		}
+
+		GameObject[] gameObjects = tile.getGameObjects();
+		if (gameObjects != null)
+		{
+			for (GameObject go : gameObjects)
+			{
+				if (go != null && go.getId() == entry.id)
+				{
+					return go;
+				}
+			}
+		}
 		return null;
 	}
-}
\ No newline at end of file
+
+	// Nur Koordinaten und ID, keine Referenz auf das Objekt selbst
+	private static class RenderEntry
+	{
+		int id;
+		int plane;
+		int sceneX;
+		int sceneY;
+		int distance;
+		Color color;
+		Stroke stroke;
+		Color labelColor;
+		String label;
+	}
+}
@@ -1,32 +1,49 @@
 package com.example;
 
-import com.google.gson.Gson;
 import com.google.inject.Provides;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.AnimationChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.InteractingChanged;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.StatChanged;
+import net.runelite.api.events.WallObjectDespawned;
 import net.runelite.api.widgets.WidgetInfo;
 import net.runelite.api.widgets.Widget;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.overlay.OverlayManager;
-import org.java_websocket.WebSocket;
-import org.java_websocket.handshake.ClientHandshake;
-import org.java_websocket.server.WebSocketServer;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
 
 import javax.inject.Inject;
 import java.awt.*;
-import java.net.InetSocketAddress;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @PluginDescriptor(
@@ -39,51 +56,78 @@ public class WillowFinderPlugin extends Plugin
 	@Inject
 	private Client client;
 
+	@Inject
+	private ClientThread clientThread;
+
 	@Inject
 	private WillowFinderConfig config;
 
 	@Inject
 	private OverlayManager overlayManager;
 
+	@Inject
+	private ConfigManager configManager;
+
 	@Inject
 	private WillowFinderOverlay overlay;
 
-	private SimpleWebSocketServer wsServer;
-	private final Gson gson = new Gson();
+	@Inject
+	private ClickboxCache clickboxCache;
 
-	// Willow Tree IDs
-	private static final int[] WILLOW_TREE_IDS = {10829, 10831, 10833};
-	
-	// Bank Booth IDs (verschiedene Banken)
-	private static final int[] BANK_BOOTH_IDS = {
-		10355, 10356, 10357, 10358, // Standard booths
-		11338, 12798, 14367, 19230, // Mehr Varianten
-		24914, 25808, 27254, 29085,
-		34752, 35647, 36786, 37474
-	};
-	
-	// Bank Chest IDs
-	private static final int[] BANK_CHEST_IDS = {
-		4483, 8981, 14382, 21301,
-		27254, 34752
-	};
+	@Inject
+	private QueryDispatcher queryDispatcher;
 
-    // Motherlode Mine IDs (Beispiele für die fehlenden Symbole)
-    private static final int[] ORE_VEIN_IDS = {26661, 26662, 26663, 26664};
-    private static final int[] HOPPER_IDS = {26674};
-    private static final int[] SACK_IDS = {26688};
-    private static final int[] BROKEN_STRUT_IDS = {26669, 26670};
+	@Inject
+	private NpcIndex npcIndex;
 
-    private String lastJsonData = "{}"; // Speichert den letzten gültigen Stand
+	@Inject
+	private GroundItemIndex groundItemIndex;
 
-    @Getter
-	private final List<WillowTreeData> willowTrees = new ArrayList<>();
+	@Inject
+	private ObjectLifecycleTracker lifecycleTracker;
+
+	@Inject
+	private LoadShedder loadShedder;
 
+	@Inject
+	private PlayerState playerState;
+
+	@Getter
+	@Inject
+	private SessionStats sessionStats;
+
+	// Eine pro startUp, in shutDown geschlossen; die nächste wartet auf den Stop der vorigen
+	private WebSocketLifecycle webSocket;
+
+	// Welche Objekt-IDs getrackt werden (Bäume, Banken, MLM ...), aus der Config; wird bei
+	// Änderungen auf dem Client-Thread komplett ausgetauscht, ein Tick liest sie genau einmal
+	@Getter
+	private volatile CategoryRegistry categoryRegistry = CategoryRegistry.defaults();
+
+    // Kodiert den Snapshot einmal pro Tick; der Broadcaster speichert den letzten gültigen Stand
+    private final SnapshotEncoder snapshotEncoder = new SnapshotEncoder();
+    private final SnapshotBroadcaster broadcaster = new SnapshotBroadcaster(() -> config.compressionLevel());
+    private SharedMemoryTransport sharedMemory;
+
+    static final String SHARED_MEMORY_FILE = "willowfinder/snapshots.ring";
+    static final String WEBSOCKET_PORT_FILE = "willowfinder/websocket.port";
+
+    // Bäume, Banken und MLM-Objekte des aktuellen Ticks, spaltenweise und ohne Objekt-Referenzen
     @Getter
-    private final List<MiningObjectData> miningObjects = new ArrayList<>(); // Für MLM
+    private final TrackedObjects trackedObjects = new TrackedObjects();
+
+    // Laufdistanzen vom Spieler über die Kollisionsdaten, statt Luftlinie
+    private final TileDistanceField distanceField = new TileDistanceField();
 
 	@Getter
-	private final List<BankData> banks = new ArrayList<>();
+	private final List<NpcData> npcs = new ArrayList<>();
+
+	@Getter
+	private final List<GroundItemData> groundItems = new ArrayList<>();
+
+	// Leeres Set = keine Filterung
+	private volatile Set<Integer> npcIdFilter = Collections.emptySet();
+	private volatile Set<Integer> groundItemIdFilter = Collections.emptySet();
 
 	@Getter
 	private final List<InventoryItemData> inventoryItems = new ArrayList<>();
@@ -95,12 +139,24 @@ public class WillowFinderPlugin extends Plugin
 	@Override
 	protected void startUp() throws Exception
 	{
+		migrateHighlightColors();
+		categoryRegistry = CategoryRegistry.parse(config.categoryRegistry());
 		overlayManager.add(overlay);
+		updateIdFilters();
+		clientThread.invoke(this::seedIndices);
+
+		if (config.enableSharedMemory())
+		{
+			clientThread.invoke(this::startSharedMemory);
+		}
 		
+		webSocket = new WebSocketLifecycle(broadcaster, queryDispatcher, new File(RuneLite.RUNELITE_DIR, WEBSOCKET_PORT_FILE),
+			webSocket);
 		if (config.enableWebSocket())
 		{
+			// Bindet im Hintergrund, der gebundene Port wird von WebSocketLifecycle geloggt
 			startWebSocketServer();
-			log.info("Willow Finder gestartet! WebSocket auf ws://localhost:8765");
+			log.info("Willow Finder gestartet!");
 		}
 		else
 		{
@@ -111,65 +167,137 @@ public class WillowFinderPlugin extends Plugin
 	@Override
 	protected void shutDown() throws Exception
 	{
+		clientThread.invoke(this::stopSharedMemory);
 		overlayManager.remove(overlay);
-		willowTrees.clear();
-		banks.clear();
+		overlay.clear();
+		clickboxCache.clear();
+		queryDispatcher.clear();
+		npcIndex.clear();
+		groundItemIndex.clear();
+		lifecycleTracker.clear();
+		loadShedder.clear();
+		playerState.reset();
+		publishesSincePlayer = PLAYER_EVERY_PUBLISHES;
+		sessionStats.clear();
+		npcs.clear();
+		groundItems.clear();
+		trackedObjects.clear();
 		inventoryItems.clear();
-		
-		if (wsServer != null)
-		{
-			try
-			{
-				wsServer.stop();
-				log.info("WebSocket Server gestoppt");
-			}
-			catch (InterruptedException e)
-			{
-				log.error("WebSocket stop failed", e);
-			}
-		}
+
+		// Blockiert nicht, die Verbindungen werden im Hintergrund geschlossen, danach endet der Thread
+		webSocket.close();
 	}
 
     private int logTimer = 0;
 
+    // Die volle Player-Map geht nur mit jedem n-ten gesendeten Snapshot raus, dazwischen nur
+    // player_delta. Wer "player" ausdrücklich abonniert, bekommt sie trotzdem jedes Mal.
+    private static final int PLAYER_EVERY_PUBLISHES = 10;
+    private int publishesSincePlayer = PLAYER_EVERY_PUBLISHES;
+
     @Subscribe
     public void onGameTick(GameTick gameTick)
     {
-        willowTrees.clear();
-        banks.clear();
+        queryDispatcher.onGameTick();
+
+        trackedObjects.clear();
         inventoryItems.clear();
 
-        scanGameObjects();
+        long t = System.nanoTime();
+        // Alle Stufen des Ticks mit derselben Registry, sonst passen Kategorie-Indizes und Topics nicht zusammen
+        CategoryRegistry registry = categoryRegistry;
+        updateDistanceField();
+        t = mark(LoadShedder.Stage.DISTANCE, t);
+        scanGameObjects(registry);
+        t = mark(LoadShedder.Stage.SCAN, t);
+        updateLifecycle(registry);
+        sessionStats.onTick();
+        t = mark(LoadShedder.Stage.LIFECYCLE, t);
+        updateNpcsAndGroundItems();
+        t = mark(LoadShedder.Stage.ENTITIES, t);
         updateInventory();
+        t = mark(LoadShedder.Stage.INVENTORY, t);
+        playerState.update();
+        t = mark(LoadShedder.Stage.PLAYER, t);
+
+        // Render-Liste nur einmal pro Tick aufbauen, nicht pro Frame
+        overlay.rebuild(registry);
+        t = mark(LoadShedder.Stage.OVERLAY, t);
 
         logTimer++;
         if (logTimer >= 10)
         {
-            logNearbyObjects();
+            // Reine Diagnose, fällt unter Last als Erstes weg
+            if (!loadShedder.skipDiagnostics())
+            {
+                logNearbyObjects();
+                t = mark(LoadShedder.Stage.DIAGNOSTICS, t);
+            }
             logTimer = 0;
         }
 
-        // Generiere JSON auf dem Client-Thread und speichere es
-        lastJsonData = buildJsonData();
-
-        if (wsServer != null && config.enableWebSocket())
+        if (loadShedder.shouldPublish(client.getTickCount()))
         {
-            // Sende den bereits generierten String
-            try
+            // Generiere JSON auf dem Client-Thread, einmal kodiert für alle Transports
+            Map<String, Object> snapshot = buildSnapshot(registry);
+            // lifecycle_events enthält die Wechsel seit dem letzten gesendeten Snapshot
+            lifecycleTracker.clearTransitions();
+            // Geänderte Spielerfelder seit dem letzten gesendeten Snapshot
+            Map<String, Object> playerDelta = playerState.takeDelta();
+            if (playerDelta != null)
             {
-                for (WebSocket conn : wsServer.getConnections())
-                {
-                    if (conn.isOpen())
-                    {
-                        conn.send(lastJsonData);
-                    }
-                }
+                snapshot.put("player_delta", playerDelta);
+            }
+            // Session-Statistik nur alle paar Ticks, sie ändert sich langsam
+            if (sessionStats.takeDue())
+            {
+                snapshot.put("stats", sessionStats.toMap());
+            }
+            Object player = null;
+            if (++publishesSincePlayer < PLAYER_EVERY_PUBLISHES)
+            {
+                player = snapshot.remove("player");
+            }
+            else
+            {
+                publishesSincePlayer = 0;
+            }
+            ByteBuffer payload = snapshotEncoder.encode(snapshot);
+            if (player != null)
+            {
+                // Nur für Verbindungen mit eigenem Topic-Set, die gemeinsame Payload ist schon kodiert
+                snapshot.put("player", player);
+            }
+            t = mark(LoadShedder.Stage.SNAPSHOT, t);
+
+            if (sharedMemory != null)
+            {
+                sharedMemory.publish(payload);
             }
-            catch (Exception e)
+
+            if (webSocket != null && webSocket.isRunning())
             {
-                log.error("WebSocket broadcast failed", e);
+                // Sende die bereits kodierten Bytes, kein UTF-8 Encoding pro Verbindung
+                try
+                {
+                    broadcaster.broadcast(webSocket.getConnections(), snapshot, payload);
+                }
+                catch (Exception e)
+                {
+                    log.error("WebSocket broadcast failed", e);
+                }
             }
+            mark(LoadShedder.Stage.BROADCAST, t);
         }
+
+        loadShedder.endTick();
+    }
+
+    private long mark(LoadShedder.Stage stage, long since)
+    {
+        long now = System.nanoTime();
+        loadShedder.record(stage, now - since);
+        return now;
     }
 
 	@Subscribe
@@ -198,8 +326,221 @@ public class WillowFinderPlugin extends Plugin
 		}
 	}
 
+	@Subscribe
+	public void onGameObjectDespawned(GameObjectDespawned event)
+	{
+		clickboxCache.invalidate(event.getGameObject());
+	}
+
+	@Subscribe
+	public void onWallObjectDespawned(WallObjectDespawned event)
+	{
+		clickboxCache.invalidate(event.getWallObject());
+	}
+
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event)
+	{
+		queryDispatcher.onGameStateChanged(event.getGameState());
+
+		// Beim Laden einer neuen Region sind alle Objekte neu
+		if (event.getGameState() == GameState.LOADING)
+		{
+			clickboxCache.clear();
+			// Bodenitems der neuen Region kommen per ItemSpawned wieder rein
+			groundItemIndex.clear();
+		}
+		else if (event.getGameState() == GameState.LOGIN_SCREEN || event.getGameState() == GameState.HOPPING)
+		{
+			npcIndex.clear();
+			groundItemIndex.clear();
+			playerState.reset();
+			publishesSincePlayer = PLAYER_EVERY_PUBLISHES;
+			sessionStats.resetBaselines();
+		}
+	}
+
+	@Subscribe
+	public void onStatChanged(StatChanged event)
+	{
+		playerState.onStatChanged(event);
+		sessionStats.onStatChanged(event);
+	}
+
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event)
+	{
+		if (event.getContainerId() == InventoryID.INVENTORY.getId())
+		{
+			sessionStats.onInventoryChanged(event.getItemContainer());
+		}
+	}
+
+	@Subscribe
+	public void onAnimationChanged(AnimationChanged event)
+	{
+		playerState.onAnimationChanged(event.getActor());
+	}
+
+	@Subscribe
+	public void onInteractingChanged(InteractingChanged event)
+	{
+		playerState.onInteractingChanged(event.getSource(), event.getTarget());
+	}
+
+	@Subscribe
+	public void onNpcSpawned(NpcSpawned event)
+	{
+		npcIndex.add(event.getNpc());
+	}
+
+	@Subscribe
+	public void onNpcDespawned(NpcDespawned event)
+	{
+		npcIndex.remove(event.getNpc());
+	}
+
+	@Subscribe
+	public void onItemSpawned(ItemSpawned event)
+	{
+		groundItemIndex.add(event.getItem(), event.getTile());
+	}
+
+	@Subscribe
+	public void onItemDespawned(ItemDespawned event)
+	{
+		groundItemIndex.remove(event.getItem());
+	}
+
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if ("willowfinder".equals(event.getGroup()))
+		{
+			updateIdFilters();
+
+			if (event.getKey().equals("categoryRegistry"))
+			{
+				updateCategoryRegistry();
+			}
+
+			if (event.getKey().startsWith("sharedMemory") || event.getKey().equals("enableSharedMemory"))
+			{
+				clientThread.invoke(() ->
+				{
+					stopSharedMemory();
+					if (config.enableSharedMemory())
+					{
+						startSharedMemory();
+					}
+				});
+			}
+
+			if (event.getKey().equals("enableWebSocket") || event.getKey().equals("webSocketPort")
+				|| event.getKey().equals("enableCompression"))
+			{
+				// Stop und Start laufen nacheinander auf dem Lifecycle-Thread
+				webSocket.stop();
+				if (config.enableWebSocket())
+				{
+					startWebSocketServer();
+				}
+			}
+		}
+	}
+
+	// Die früheren Farb-Einstellungen einmal in die Kategorien übernehmen und danach entfernen.
+	// Hat jemand die Kategorien schon selbst angepasst, gelten die.
+	private void migrateHighlightColors()
+	{
+		Color tree = configManager.getConfiguration("willowfinder", "highlightColor", Color.class);
+		Color mining = configManager.getConfiguration("willowfinder", "miningHighlightColor", Color.class);
+		Color bank = configManager.getConfiguration("willowfinder", "bankHighlightColor", Color.class);
+		if (tree == null && mining == null && bank == null) return;
+
+		if (configManager.getConfiguration("willowfinder", "categoryRegistry") == null)
+		{
+			configManager.setConfiguration("willowfinder", "categoryRegistry", CategoryRegistry.defaultWithColors(tree, mining, bank));
+			log.info("Highlight-Farben in die Kategorien übernommen");
+		}
+		configManager.unsetConfiguration("willowfinder", "highlightColor");
+		configManager.unsetConfiguration("willowfinder", "miningHighlightColor");
+		configManager.unsetConfiguration("willowfinder", "bankHighlightColor");
+	}
+
+	// Neue Lookups bauen und nur die schon gefundenen Objekte neu zuordnen, kein zusätzlicher Scan.
+	// Ausgetauscht wird zusammen mit dem Neuzuordnen auf dem Client-Thread, nie mitten im Tick
+	private void updateCategoryRegistry()
+	{
+		CategoryRegistry registry = CategoryRegistry.parse(config.categoryRegistry());
+		log.info("Kategorien neu geladen: {}", registry.getTopics());
+
+		clientThread.invoke(() ->
+		{
+			categoryRegistry = registry;
+			int changed = trackedObjects.reindex(registry);
+			overlay.rebuild(registry);
+			log.debug("{} Objekte neu zugeordnet", changed);
+		});
+	}
+
+	private void updateIdFilters()
+	{
+		npcIdFilter = parseIdSet(config.npcIdFilter());
+		groundItemIdFilter = parseIdSet(config.groundItemIdFilter());
+	}
+
+	static Set<Integer> parseIdSet(String value)
+	{
+		if (value == null || value.trim().isEmpty())
+		{
+			return Collections.emptySet();
+		}
+
+		Set<Integer> ids = new HashSet<>();
+		for (String part : value.split(","))
+		{
+			try
+			{
+				ids.add(Integer.parseInt(part.trim()));
+			}
+			catch (NumberFormatException e)
+			{
+				log.warn("Ungültige ID im Filter: {}", part);
+			}
+		}
+		return ids;
+	}
+
+	// Einmaliger Scan beim Start, falls der Plugin im eingeloggten Zustand aktiviert wird
+	private void seedIndices()
+	{
+		if (client.getGameState() != GameState.LOGGED_IN) return;
+
+		for (NPC npc : client.getNpcs())
+		{
+			npcIndex.add(npc);
+		}
+
+		Tile[][][] tiles = client.getScene().getTiles();
+		for (Tile[][] planeTiles : tiles)
+		{
+			for (Tile[] row : planeTiles)
+			{
+				for (Tile tile : row)
+				{
+					if (tile == null || tile.getGroundItems() == null) continue;
+					for (TileItem item : tile.getGroundItems())
+					{
+						groundItemIndex.add(item, tile);
+					}
+				}
+			}
+		}
+	}
+
 	// Optimiert: Scanne alle Tiles nur EINMAL
-    private void scanGameObjects()
+    private void scanGameObjects(CategoryRegistry registry)
     {
         Scene scene = client.getScene();
         Tile[][][] tiles = scene.getTiles();
@@ -207,25 +548,31 @@ public class WillowFinderPlugin extends Plugin
         Player player = client.getLocalPlayer();
         if (player == null) return;
 
-        // Alle Listen leeren
-        willowTrees.clear();
-        miningObjects.clear();
-        banks.clear();
+        trackedObjects.clear();
 
         LocalPoint playerLocation = player.getLocalLocation();
+        int baseX = client.getBaseX();
+        int baseY = client.getBaseY();
 
-        for (int x = 0; x < Constants.SCENE_SIZE; x++)
+        // Unter Last nur ein Quadrat um den Spieler scannen
+        int radius = loadShedder.scanRadius();
+        int minX = Math.max(0, playerLocation.getSceneX() - radius);
+        int maxX = Math.min(Constants.SCENE_SIZE - 1, playerLocation.getSceneX() + radius);
+        int minY = Math.max(0, playerLocation.getSceneY() - radius);
+        int maxY = Math.min(Constants.SCENE_SIZE - 1, playerLocation.getSceneY() + radius);
+
+        for (int x = minX; x <= maxX; x++)
         {
-            for (int y = 0; y < Constants.SCENE_SIZE; y++)
+            for (int y = minY; y <= maxY; y++)
             {
                 Tile tile = tiles[plane][x][y];
                 if (tile == null) continue;
 
-                // --- 1. WALL OBJECTS (Speziell für Ore Veins) ---
+                // --- 1. WALL OBJECTS (z.B. Ore Veins) ---
                 WallObject wall = tile.getWallObject();
-                if (wall != null && isOreVein(wall.getId()))
+                if (wall != null)
                 {
-                    addMiningObject(wall.getId(), wall.getLocalLocation(), playerLocation, "vein");
+                    track(registry, wall, x, y, plane, baseX, baseY, playerLocation);
                 }
 
                 // --- 2. GAME OBJECTS (Bäume, Banken, MLM-Maschinen) ---
@@ -234,50 +581,136 @@ public class WillowFinderPlugin extends Plugin
                 {
                     for (GameObject go : objects)
                     {
-                        if (go == null) continue;
-                        int id = go.getId();
-
-                        // Prüfe: Ist es ein Willow Baum?
-                        if (isWillowTree(id))
-                        {
-                            WorldPoint wp = WorldPoint.fromLocal(client, go.getLocalLocation());
-                            net.runelite.api.Point rlP = Perspective.localToCanvas(client, go.getLocalLocation(), plane);
-                            if (rlP != null) {
-                                willowTrees.add(new WillowTreeData(go, wp, new java.awt.Point(rlP.getX(), rlP.getY()),
-                                        go.getLocalLocation().distanceTo(playerLocation)/128, id));
-                            }
-                        }
-                        // Prüfe: Ist es ein Mining Objekt?
-                        else if (isOreVein(id)) addMiningObject(id, go.getLocalLocation(), playerLocation, "vein");
-                        else if (isHopper(id)) addMiningObject(id, go.getLocalLocation(), playerLocation, "hopper");
-                        else if (isSack(id)) addMiningObject(id, go.getLocalLocation(), playerLocation, "sack");
-                        else if (isBrokenStrut(id)) addMiningObject(id, go.getLocalLocation(), playerLocation, "strut");
-
-                            // Prüfe: Ist es eine Bank?
-                        else if (isBankObject(id))
-                        {
-                            WorldPoint wp = WorldPoint.fromLocal(client, go.getLocalLocation());
-                            net.runelite.api.Point rlP = Perspective.localToCanvas(client, go.getLocalLocation(), plane);
-                            if (rlP != null) {
-                                banks.add(new BankData(go, wp, new java.awt.Point(rlP.getX(), rlP.getY()),
-                                        go.getLocalLocation().distanceTo(playerLocation)/128, "chest"));
-                            }
-                        }
+                        // Große Objekte belegen mehrere Tiles, nur am Ursprung zählen (wie queryObjects)
+                        if (go == null || go.getSceneMinLocation().getX() != x || go.getSceneMinLocation().getY() != y) continue;
+                        track(registry, go, x, y, plane, baseX, baseY, playerLocation);
                     }
                 }
             }
         }
     }
 
-    // Hilfsmethode um Mining-Objekte zur Liste hinzuzufügen
-    private void addMiningObject(int id, LocalPoint lp, LocalPoint pLoc, String type) {
-        WorldPoint wp = WorldPoint.fromLocal(client, lp);
-        net.runelite.api.Point rlP = Perspective.localToCanvas(client, lp, client.getPlane());
-        if (rlP != null && wp != null) {
-            miningObjects.add(new MiningObjectData(null, wp, new java.awt.Point(rlP.getX(), rlP.getY()), lp.distanceTo(pLoc)/128, id, type));
+    // Rechnet nur neu, wenn der Spieler das Tile wechselt oder sich die Kollision ändert
+    private void updateDistanceField()
+    {
+        Player player = client.getLocalPlayer();
+        CollisionData[] collisionMaps = client.getCollisionMaps();
+        int plane = client.getPlane();
+        if (player == null || collisionMaps == null || plane >= collisionMaps.length || collisionMaps[plane] == null)
+        {
+            distanceField.invalidate();
+            return;
         }
+
+        LocalPoint playerLocation = player.getLocalLocation();
+        distanceField.update(collisionMaps[plane].getFlags(), plane, playerLocation.getSceneX(), playerLocation.getSceneY());
+    }
+
+    // Hilfsmethode um ein registriertes Objekt in die Spalten zu schreiben; Weltkoordinaten
+    // direkt aus Basis + Szene statt über WorldPoint.fromLocal, das pro Objekt alloziert.
+    // Auch Objekte hinter der Kamera werden eingetragen, sonst hinge der Lifecycle von der
+    // Kamera ab; sie haben nur keine Canvas-Position
+    private void track(CategoryRegistry registry, TileObject object, int sceneX, int sceneY, int plane,
+        int baseX, int baseY, LocalPoint playerLocation)
+    {
+        int id = object.getId();
+        int category = registry.categoryOf(id);
+        if (category < 0) return;
+
+        LocalPoint lp = object.getLocalLocation();
+        net.runelite.api.Point rlP = Perspective.localToCanvas(client, lp, plane);
+
+        trackedObjects.add(id, (byte) category, registry.stateOf(id), baseX + lp.getSceneX(), baseY + lp.getSceneY(), plane,
+            sceneX, sceneY, rlP != null ? rlP.getX() : TrackedObjects.NO_CANVAS, rlP != null ? rlP.getY() : TrackedObjects.NO_CANVAS,
+            lp.distanceTo(playerLocation) / 128, distanceField.distanceToObject(sceneX, sceneY));
     }
 
+	// Zustände von Bäumen und Veins an den Tracker melden, der die Wechsel über Ticks hinweg verfolgt
+	private void updateLifecycle(CategoryRegistry registry)
+	{
+		lifecycleTracker.beginTick();
+		int tick = client.getTickCount();
+		for (int i = 0; i < registry.size(); i++)
+		{
+			CategoryRegistry.Category category = registry.get(i);
+			if (category.hasLifecycle())
+			{
+				observe(trackedObjects.view(category.index), category.kind, tick);
+			}
+		}
+		sessionStats.onTransitions(lifecycleTracker.getTransitions(), lifecycleTracker.getTickStart());
+	}
+
+	private void observe(TrackedObjects.View view, String kind, int tick)
+	{
+		for (int i = 0; i < view.size(); i++)
+		{
+			int row = view.row(i);
+			lifecycleTracker.observe(trackedObjects.getWorldX(row), trackedObjects.getWorldY(row), trackedObjects.getPlane(row),
+				kind, TrackedObjects.stateName(trackedObjects.getState(row)), tick);
+		}
+	}
+
+	private void putLifecycle(Map<String, Object> m, int row, int tick)
+	{
+		ObjectLifecycleTracker.Location location = lifecycleTracker.get(
+			trackedObjects.getWorldX(row), trackedObjects.getWorldY(row), trackedObjects.getPlane(row));
+		if (location == null) return;
+
+		m.put("state_since_tick", location.sinceTick);
+		m.put("ticks_in_state", location.ticksInState(tick));
+		m.put("respawn_samples", location.getRespawnSamples());
+		int mean = location.meanRespawnTicks();
+		m.put("mean_respawn_ticks", mean >= 0 ? mean : null);
+		int predicted = location.predictedRespawnTicks(tick);
+		m.put("predicted_respawn_ticks", predicted >= 0 ? predicted : null);
+	}
+
+	// Liest nur aus den Spawn-Indizes, kein Scan über client.getNpcs() oder die Tiles
+	private void updateNpcsAndGroundItems()
+	{
+		npcs.clear();
+		groundItems.clear();
+
+		Player player = client.getLocalPlayer();
+		if (player == null) return;
+
+		LocalPoint playerLocation = player.getLocalLocation();
+		int plane = client.getPlane();
+
+		Set<Integer> npcFilter = npcIdFilter;
+		for (NPC npc : npcIndex.getNpcs())
+		{
+			if (!npcFilter.isEmpty() && !npcFilter.contains(npc.getId())) continue;
+
+			LocalPoint lp = npc.getLocalLocation();
+			if (lp == null) continue;
+			net.runelite.api.Point rlP = Perspective.localToCanvas(client, lp, plane);
+			if (rlP != null)
+			{
+				npcs.add(new NpcData(npc.getId(), npc.getName(), npc.getWorldLocation(),
+					new java.awt.Point(rlP.getX(), rlP.getY()), lp.distanceTo(playerLocation) / 128));
+			}
+		}
+
+		Set<Integer> itemFilter = groundItemIdFilter;
+		for (Map.Entry<TileItem, Tile> entry : groundItemIndex.getItems().entrySet())
+		{
+			TileItem item = entry.getKey();
+			Tile tile = entry.getValue();
+			if (tile.getPlane() != plane) continue;
+			if (!itemFilter.isEmpty() && !itemFilter.contains(item.getId())) continue;
+
+			LocalPoint lp = tile.getLocalLocation();
+			net.runelite.api.Point rlP = Perspective.localToCanvas(client, lp, plane);
+			if (rlP != null)
+			{
+				groundItems.add(new GroundItemData(item.getId(), item.getQuantity(), tile.getWorldLocation(),
+					new java.awt.Point(rlP.getX(), rlP.getY()), lp.distanceTo(playerLocation) / 128));
+			}
+		}
+	}
+
 	private void updateInventory()
 	{
 		ItemContainer inventory = client.getItemContainer(InventoryID.INVENTORY);
@@ -312,187 +745,6 @@ public class WillowFinderPlugin extends Plugin
 		}
 	}
 
-	private boolean isWillowTree(int objectId)
-	{
-		for (int id : WILLOW_TREE_IDS)
-		{
-			if (id == objectId) return true;
-		}
-		return false;
-	}
-
-	private boolean isBankObject(int objectId)
-	{
-		return isBankBooth(objectId) || isBankChest(objectId);
-	}
-
-	private boolean isBankBooth(int objectId)
-	{
-		for (int id : BANK_BOOTH_IDS)
-		{
-			if (id == objectId) return true;
-		}
-		return false;
-	}
-
-	private boolean isBankChest(int objectId)
-	{
-		for (int id : BANK_CHEST_IDS)
-		{
-			if (id == objectId) return true;
-		}
-		return false;
-	}
-	
-	private boolean isOreVein(int objectId)
-	{
-		for (int id : ORE_VEIN_IDS)
-		{
-			if (id == objectId) return true;
-		}
-		return false;
-	}
-	
-	private boolean isHopper(int objectId)
-	{
-		for (int id : HOPPER_IDS)
-		{
-			if (id == objectId) return true;
-		}
-		return false;
-	}
-	
-	private boolean isSack(int objectId)
-	{
-		for (int id : SACK_IDS)
-		{
-			if (id == objectId) return true;
-		}
-		return false;
-	}
-	
-	private boolean isBrokenStrut(int objectId)
-	{
-		for (int id : BROKEN_STRUT_IDS)
-		{
-			if (id == objectId) return true;
-		}
-		return false;
-	}
-	
-	private String getOreVeinState(int objectId)
-	{
-		switch (objectId)
-		{
-			case 26661:
-				return "full";
-			case 26662:
-				return "medium";
-			case 26663:
-				return "low";
-			case 26664:
-				return "depleted";
-			default:
-				return "unknown";
-		}
-	}
-
-	private String getTreeState(int objectId)
-	{
-		switch (objectId)
-		{
-			case 10829:
-				return "full";
-			case 10831:
-				return "chopped";
-			case 10833:
-				return "stump";
-			default:
-				return "unknown";
-		}
-	}
-
-	private String getPlayerActivity(int animationId)
-	{
-		// Bekannte Animation IDs
-		switch (animationId)
-		{
-			case -1:
-				return "idle";
-			case 867:   // Woodcutting (bronze-rune axe)
-			case 2846:  // Woodcutting (dragon axe)
-			case 870:   // Woodcutting (3rd age axe)
-			case 875:   // Woodcutting (crystal axe)
-			case 10251: // Woodcutting (infernal axe)
-				return "woodcutting";
-			case 621:   // Fishing (net)
-			case 622:   // Fishing (bait/fly)
-			case 623:   // Fishing (cage)
-			case 618:   // Fishing (harpoon)
-				return "fishing";
-			case 896:   // Mining
-			case 7282:  // Mining (dragon pickaxe)
-				return "mining";
-			case 422:   // Combat (slash)
-			case 423:   // Combat (stab)
-			case 401:   // Combat (crush)
-			case 711:   // Combat (magic)
-			case 426:   // Combat (ranged)
-				return "combat";
-			case 832:   // Cooking
-				return "cooking";
-			case 713:   // Crafting
-				return "crafting";
-			case 8980:  // Smithing (smelting)
-				return "smithing";
-			default:
-				return "unknown_" + animationId;
-		}
-	}
-
-	private boolean isBankOpen()
-	{
-		// Bank Container sichtbar?
-		return client.getItemContainer(InventoryID.BANK) != null;
-	}
-
-	private boolean isDialogOpen()
-	{
-		// NPC Dialog Widget
-		Widget npcDialog = client.getWidget(WidgetInfo.DIALOG_NPC_TEXT);
-		if (npcDialog != null && !npcDialog.isHidden())
-		{
-			return true;
-		}
-		
-		// Player Dialog (Click to continue)
-		Widget playerDialog = client.getWidget(WidgetInfo.DIALOG_PLAYER_TEXT);
-		if (playerDialog != null && !playerDialog.isHidden())
-		{
-			return true;
-		}
-		
-		// Option Dialog (Multiple choices)
-		Widget optionDialog = client.getWidget(WidgetInfo.DIALOG_OPTION);
-		if (optionDialog != null && !optionDialog.isHidden())
-		{
-			return true;
-		}
-		
-		return false;
-	}
-
-	private boolean isShopOpen()
-	{
-		// Shop Widget ID: 300,75 oder 300,76
-		Widget shopWidget = client.getWidget(300, 75);
-		if (shopWidget == null)
-		{
-			shopWidget = client.getWidget(300, 76);
-		}
-		return shopWidget != null && !shopWidget.isHidden();
-	}
-
     private void logNearbyObjects()
     {
         Player player = client.getLocalPlayer();
@@ -556,166 +808,79 @@ public class WillowFinderPlugin extends Plugin
         }
     }
 
-	private String getDialogText()
+	Map<String, Object> buildSnapshot()
 	{
-		// NPC Dialog
-		Widget npcDialog = client.getWidget(WidgetInfo.DIALOG_NPC_TEXT);
-		if (npcDialog != null && !npcDialog.isHidden())
-		{
-			Widget npcName = client.getWidget(WidgetInfo.DIALOG_NPC_NAME);
-			String name = npcName != null ? npcName.getText() : "NPC";
-			return "[" + name + "] " + npcDialog.getText();
-		}
-		
-		// Player Dialog
-		Widget playerDialog = client.getWidget(WidgetInfo.DIALOG_PLAYER_TEXT);
-		if (playerDialog != null && !playerDialog.isHidden())
-		{
-			return "[Player] " + playerDialog.getText();
-		}
-		
-		// Options Dialog
-		Widget optionDialog = client.getWidget(WidgetInfo.DIALOG_OPTION);
-		if (optionDialog != null && !optionDialog.isHidden())
-		{
-			StringBuilder options = new StringBuilder("[Options] ");
-			Widget[] children = optionDialog.getChildren();
-			if (children != null)
-			{
-				for (Widget child : children)
-				{
-					if (child != null && child.getText() != null && !child.getText().isEmpty())
-					{
-						options.append(child.getText()).append(" | ");
-					}
-				}
-			}
-			return options.toString();
-		}
-		
-		return null;
+		return buildSnapshot(categoryRegistry);
 	}
 
-	private String buildJsonData()
+	private Map<String, Object> buildSnapshot(CategoryRegistry registry)
 	{
 		Map<String, Object> data = new HashMap<>();
 		
 		Player player = client.getLocalPlayer();
-		if (player == null) return gson.toJson(data);
+		if (player == null) return data;
 
-		WorldPoint playerPos = player.getWorldLocation();
-		
-		// Player Info (erweitert)
-		Map<String, Object> playerData = new HashMap<>();
-		playerData.put("x", playerPos.getX());
-		playerData.put("y", playerPos.getY());
-		playerData.put("plane", playerPos.getPlane());
-		playerData.put("health", client.getBoostedSkillLevel(Skill.HITPOINTS));
-		playerData.put("max_health", client.getRealSkillLevel(Skill.HITPOINTS));
-		playerData.put("prayer", client.getBoostedSkillLevel(Skill.PRAYER));
-		playerData.put("run_energy", client.getEnergy() / 100);
-		playerData.put("woodcutting_level", client.getRealSkillLevel(Skill.WOODCUTTING));
-		
-		// Player Activity
-		int animationId = player.getAnimation();
-		String activity = getPlayerActivity(animationId);
-		playerData.put("animation_id", animationId);
-		playerData.put("activity", activity);
-		playerData.put("is_idle", animationId == -1);
-		playerData.put("is_moving", player.getIdlePoseAnimation() != player.getPoseAnimation());
-		playerData.put("interacting_with", player.getInteracting() != null ? player.getInteracting().getName() : null);
-		
-		// Interface/Dialog Detection
-		playerData.put("in_bank", isBankOpen());
-		playerData.put("in_dialog", isDialogOpen());
-		playerData.put("in_shop", isShopOpen());
-		// Note: Typing detection nicht verfügbar in aktueller API
-		
-		// Interaktion Details
-		Actor interacting = player.getInteracting();
-		if (interacting != null)
-		{
-			Map<String, Object> interactData = new HashMap<>();
-			interactData.put("name", interacting.getName());
-			interactData.put("type", interacting instanceof NPC ? "npc" : "player");
-			interactData.put("health_ratio", interacting.getHealthRatio());
-			interactData.put("health_scale", interacting.getHealthScale());
-			
-			if (interacting instanceof NPC)
-			{
-				NPC npc = (NPC) interacting;
-				interactData.put("npc_id", npc.getId());
-				interactData.put("combat_level", npc.getCombatLevel());
-			}
-			
-			playerData.put("interaction_details", interactData);
-		}
-		
-		// Dialog Text wenn vorhanden
-		String dialogText = getDialogText();
-		if (dialogText != null)
-		{
-			playerData.put("dialog_text", dialogText);
-		}
-		
-		data.put("player", playerData);
+		// Wird nur nach Änderungen neu gebaut, sonst dieselbe unveränderliche Map wie im letzten Tick
+		data.put("player", playerState.toMap());
 
-        // --- WILLOW TREES ---
-        List<Map<String, Object>> treesData = new ArrayList<>();
-        for (WillowTreeData tree : willowTrees) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("world_x", tree.worldPoint.getX());
-            m.put("world_y", tree.worldPoint.getY());
-            m.put("canvas_x", tree.canvasPoint.x);
-            m.put("canvas_y", tree.canvasPoint.y);
-            m.put("distance", tree.distance);
-            m.put("state", getTreeState(tree.objectId));
-            treesData.add(m);
-        }
-        data.put("willow_trees", treesData);
+        int tick = client.getTickCount();
 
-        // --- MINING OBJECTS (Mining) ---
-        List<Map<String, Object>> oreVeins = new ArrayList<>();
-        List<Map<String, Object>> hoppers = new ArrayList<>();
-        List<Map<String, Object>> sacks = new ArrayList<>();
-        List<Map<String, Object>> struts = new ArrayList<>();
+        // --- REGISTRIERTE KATEGORIEN (Bäume, Veins, Banken, ...) ---
+        for (CategoryRegistry.Category category : registry.getCategories())
+        {
+            data.put(category.topic, trackedData(category, tick));
+        }
 
-        for (MiningObjectData mo : miningObjects) {
+        // Zustandswechsel seit dem letzten gesendeten Snapshot (Baum -> Stumpf, Vein abgebaut, Respawn ...)
+        List<Map<String, Object>> lifecycleEvents = new ArrayList<>();
+        for (ObjectLifecycleTracker.Transition t : lifecycleTracker.getTransitions()) {
             Map<String, Object> m = new HashMap<>();
-            m.put("world_x", mo.worldPoint.getX());
-            m.put("world_y", mo.worldPoint.getY());
-            m.put("canvas_x", mo.canvasPoint.x);
-            m.put("canvas_y", mo.canvasPoint.y);
-            m.put("distance", mo.distance);
-
-            if (mo.type.equals("vein")) {
-                m.put("state", getOreVeinState(mo.objectId));
-                oreVeins.add(m);
-            }
-            else if (mo.type.equals("hopper")) hoppers.add(m);
-            else if (mo.type.equals("sack")) sacks.add(m);
-            else if (mo.type.equals("strut")) struts.add(m);
+            m.put("world_x", t.worldPoint.getX());
+            m.put("world_y", t.worldPoint.getY());
+            m.put("plane", t.worldPoint.getPlane());
+            m.put("kind", t.kind);
+            m.put("from", t.from);
+            m.put("to", t.to);
+            m.put("tick", t.tick);
+            lifecycleEvents.add(m);
         }
-        data.put("ore_veins", oreVeins);
-        data.put("hoppers", hoppers);
-        data.put("sacks", sacks);
-        data.put("broken_struts", struts);
+        data.put("lifecycle_events", lifecycleEvents);
 		
-		// Banks
-		List<Map<String, Object>> banksData = new ArrayList<>();
-		for (BankData bank : banks)
-		{
-			Map<String, Object> bankMap = new HashMap<>();
-			bankMap.put("world_x", bank.worldPoint.getX());
-			bankMap.put("world_y", bank.worldPoint.getY());
-			bankMap.put("canvas_x", bank.canvasPoint.x);
-			bankMap.put("canvas_y", bank.canvasPoint.y);
-			bankMap.put("distance", bank.distance);
-			bankMap.put("type", bank.type);
-			banksData.add(bankMap);
-		}
-		data.put("banks", banksData);
-		data.put("bank_count", banks.size());
+		// Alt-Feld für bestehende Clients
+		CategoryRegistry.Category banks = registry.byTopic("banks");
+		data.put("bank_count", banks != null ? trackedObjects.view(banks.index).size() : 0);
+
+		// NPCs (aus dem Spawn-Index)
+		List<Map<String, Object>> npcsData = new ArrayList<>();
+		for (NpcData npc : npcs)
+		{
+			Map<String, Object> m = new HashMap<>();
+			m.put("id", npc.npcId);
+			m.put("name", npc.name);
+			m.put("world_x", npc.worldPoint.getX());
+			m.put("world_y", npc.worldPoint.getY());
+			m.put("canvas_x", npc.canvasPoint.x);
+			m.put("canvas_y", npc.canvasPoint.y);
+			m.put("distance", npc.distance);
+			npcsData.add(m);
+		}
+		data.put("npcs", npcsData);
+
+		// Bodenitems (aus dem Spawn-Index)
+		List<Map<String, Object>> groundItemsData = new ArrayList<>();
+		for (GroundItemData item : groundItems)
+		{
+			Map<String, Object> m = new HashMap<>();
+			m.put("id", item.itemId);
+			m.put("quantity", item.quantity);
+			m.put("world_x", item.worldPoint.getX());
+			m.put("world_y", item.worldPoint.getY());
+			m.put("canvas_x", item.canvasPoint.x);
+			m.put("canvas_y", item.canvasPoint.y);
+			m.put("distance", item.distance);
+			groundItemsData.add(m);
+		}
+		data.put("ground_items", groundItemsData);
 		
 		// Inventory (mit Canvas-Koordinaten)
 		List<Map<String, Object>> inventoryData = new ArrayList<>();
@@ -734,131 +899,107 @@ public class WillowFinderPlugin extends Plugin
 		data.put("inventory_count", inventoryItems.size());
 		data.put("inventory_full", inventoryItems.size() >= 28);
 		
-		// Chat Messages
-		data.put("chat_messages", new ArrayList<>(recentChatMessages));
-		
-		data.put("timestamp", System.currentTimeMillis());
-		
-		return gson.toJson(data);
-	}
-
-	private void startWebSocketServer()
-	{
-		wsServer = new SimpleWebSocketServer(new InetSocketAddress(8765));
-		wsServer.setReuseAddr(true);  // Erlaube Port-Reuse
-		wsServer.setConnectionLostTimeout(10);  // Timeout nach 10 Sekunden
-		wsServer.start();
-	}
-
-	private class SimpleWebSocketServer extends WebSocketServer
-	{
-		public SimpleWebSocketServer(InetSocketAddress address)
+		// Chat und Transport-Diagnose sind niedrig priorisiert und fallen unter Last weg,
+		// die Laststufe selbst wird immer mitgeschickt
+		boolean dropLowPriority = loadShedder.dropLowPriority();
+		if (!dropLowPriority)
 		{
-			super(address);
-			setReuseAddr(true);
+			data.put("chat_messages", new ArrayList<>(recentChatMessages));
 		}
 
-        @Override
-        public void onOpen(WebSocket conn, ClientHandshake handshake)
-        {
-            log.info("WebSocket Client verbunden: {}", conn.getRemoteSocketAddress());
-            try
-            {
-                // SENDE NUR DEN CACHE, NICHT buildJsonData() AUFRUFEN!
-                conn.send(lastJsonData);
-            }
-            catch (Exception e)
-            {
-                log.error("Failed to send initial data", e);
-            }
-        }
-
-		@Override
-		public void onClose(WebSocket conn, int code, String reason, boolean remote)
+		// Transport-Metriken (Stand des vorherigen Broadcasts)
+		Map<String, Object> metrics = dropLowPriority ? new HashMap<>() : broadcaster.getMetrics();
+		metrics.put("load", loadShedder.getMetrics());
+		if (webSocket != null && webSocket.isRunning())
 		{
-			log.info("WebSocket Client getrennt: {} (Code: {}, Reason: {})", 
-				conn.getRemoteSocketAddress(), code, reason);
+			metrics.put("websocket_port", webSocket.getBoundPort());
 		}
+		data.put("metrics", metrics);
 
-		@Override
-		public void onMessage(WebSocket conn, String message)
-		{
-			log.debug("Message: {}", message);
-		}
+		data.put("timestamp", System.currentTimeMillis());
+		
+		return data;
+	}
 
-		@Override
-		public void onError(WebSocket conn, Exception ex)
+	// Eine Kategorie aus den Spalten serialisieren; Zustand und Lifecycle nur, wo die Registry einen Zustand vergibt
+	private List<Map<String, Object>> trackedData(CategoryRegistry.Category category, int tick)
+	{
+		TrackedObjects.View view = trackedObjects.view(category.index);
+		List<Map<String, Object>> list = new ArrayList<>(view.size());
+		for (int i = 0; i < view.size(); i++)
 		{
-			if (conn != null)
+			int row = view.row(i);
+			Map<String, Object> m = new HashMap<>();
+			m.put("world_x", trackedObjects.getWorldX(row));
+			m.put("world_y", trackedObjects.getWorldY(row));
+			// null, solange das Objekt hinter der Kamera liegt
+			boolean onCanvas = trackedObjects.hasCanvas(row);
+			m.put("canvas_x", onCanvas ? trackedObjects.getCanvasX(row) : null);
+			m.put("canvas_y", onCanvas ? trackedObjects.getCanvasY(row) : null);
+			m.put("distance", trackedObjects.getDistance(row));
+			int walkDistance = trackedObjects.getWalkDistance(row);
+			m.put("walk_distance", walkDistance != TileDistanceField.UNREACHABLE ? walkDistance : null);
+
+			byte state = trackedObjects.getState(row);
+			if (state != TrackedObjects.NONE)
 			{
-				log.error("WebSocket Error from {}: {}", conn.getRemoteSocketAddress(), ex.getMessage());
-				// Schließe fehlerhafte Verbindung
-				try
-				{
-					conn.close();
-				}
-				catch (Exception e)
-				{
-					// Ignore
-				}
+				m.put("state", TrackedObjects.stateName(state));
+				putLifecycle(m, row, tick);
 			}
-			else
+			if (!category.label.isEmpty())
 			{
-				log.error("WebSocket Server Error", ex);
+				m.put("type", category.label);
 			}
+			list.add(m);
 		}
-
-		@Override
-		public void onStart()
-		{
-			log.info("WebSocket Server bereit auf Port 8765");
-			setConnectionLostTimeout(10);  // 10 Sekunden Timeout
-		}
+		return list;
 	}
 
-	@Provides
-	WillowFinderConfig provideConfig(ConfigManager configManager)
+	// Läuft auf dem Client-Thread, damit publish() und start/stop sich nicht überschneiden
+	private void startSharedMemory()
 	{
-		return configManager.getConfig(WillowFinderConfig.class);
+		if (sharedMemory != null) return;
+
+		File file = new File(RuneLite.RUNELITE_DIR, SHARED_MEMORY_FILE);
+		try
+		{
+			sharedMemory = new SharedMemoryTransport(file, config.sharedMemorySlots(), config.sharedMemorySlotSizeKb() * 1024);
+			log.info("Shared Memory Ringpuffer aktiv: {}", file);
+		}
+		catch (IOException | IllegalArgumentException e)
+		{
+			log.error("Shared Memory Ringpuffer konnte nicht angelegt werden", e);
+		}
 	}
 
-	// Datenklassen
-	public static class WillowTreeData
+	private void stopSharedMemory()
 	{
-		public final GameObject gameObject;
-		public final WorldPoint worldPoint;
-		public final java.awt.Point canvasPoint;
-		public final int distance;
-		public final int objectId;
+		if (sharedMemory == null) return;
 
-		public WillowTreeData(GameObject gameObject, WorldPoint worldPoint, java.awt.Point canvasPoint, int distance, int objectId)
+		if (sharedMemory.getOversizeDropped() > 0)
 		{
-			this.gameObject = gameObject;
-			this.worldPoint = worldPoint;
-			this.canvasPoint = canvasPoint;
-			this.distance = distance;
-			this.objectId = objectId;
+			log.warn("{} Snapshots waren zu groß für den Ringpuffer", sharedMemory.getOversizeDropped());
 		}
+		sharedMemory.close();
+		sharedMemory = null;
 	}
 
-	public static class BankData
+	private void startWebSocketServer()
 	{
-		public final GameObject gameObject;
-		public final WorldPoint worldPoint;
-		public final java.awt.Point canvasPoint;
-		public final int distance;
-		public final String type;
+		// permessage-deflate nur für Clients, die es aushandeln; alle anderen bekommen Draft_6455 ohne Extension
+		List<Draft> drafts = config.enableCompression()
+			? Collections.singletonList(new Draft_6455(new SharedDeflateExtension(() -> config.compressionLevel())))
+			: Collections.singletonList(new Draft_6455());
+		webSocket.start(config.webSocketPort(), drafts);
+	}
 
-		public BankData(GameObject gameObject, WorldPoint worldPoint, java.awt.Point canvasPoint, int distance, String type)
-		{
-			this.gameObject = gameObject;
-			this.worldPoint = worldPoint;
-			this.canvasPoint = canvasPoint;
-			this.distance = distance;
-			this.type = type;
-		}
+	@Provides
+	WillowFinderConfig provideConfig(ConfigManager configManager)
+	{
+		return configManager.getConfig(WillowFinderConfig.class);
 	}
 
+	// Datenklassen
 	public static class InventoryItemData
 	{
 		public final int itemId;
@@ -879,23 +1020,39 @@ public class WillowFinderPlugin extends Plugin
 		}
 	}
 	
-	public static class MiningObjectData
+	public static class NpcData
+	{
+		public final int npcId;
+		public final String name;
+		public final WorldPoint worldPoint;
+		public final java.awt.Point canvasPoint;
+		public final int distance;
+
+		public NpcData(int npcId, String name, WorldPoint worldPoint, java.awt.Point canvasPoint, int distance)
+		{
+			this.npcId = npcId;
+			this.name = name;
+			this.worldPoint = worldPoint;
+			this.canvasPoint = canvasPoint;
+			this.distance = distance;
+		}
+	}
+
+	public static class GroundItemData
 	{
-		public final GameObject gameObject;
+		public final int itemId;
+		public final int quantity;
 		public final WorldPoint worldPoint;
 		public final java.awt.Point canvasPoint;
 		public final int distance;
-		public final int objectId;
-		public final String type;
 
-		public MiningObjectData(GameObject gameObject, WorldPoint worldPoint, java.awt.Point canvasPoint, int distance, int objectId, String type)
+		public GroundItemData(int itemId, int quantity, WorldPoint worldPoint, java.awt.Point canvasPoint, int distance)
 		{
-			this.gameObject = gameObject;
+			this.itemId = itemId;
+			this.quantity = quantity;
 			this.worldPoint = worldPoint;
 			this.canvasPoint = canvasPoint;
 			this.distance = distance;
-			this.objectId = objectId;
-			this.type = type;
 		}
 	}
 }
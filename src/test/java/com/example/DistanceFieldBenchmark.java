@@ -0,0 +1,162 @@
+package com.example;
+
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.Constants;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Misst TileDistanceField auf Kollisionsgittern in voller Szenengröße: komplette Neuberechnung
+ * bei wechselndem Start-Tile und den Fall ohne Änderung (nur Vergleich der Kollisionsdaten),
+ * jeweils mit Zeit und Allokation pro update(). Die Distanzen selbst prüft TileDistanceFieldTest.
+ *
+ * Start: ./gradlew distanceFieldBenchmark [-Piterations=2000]
+ */
+public class DistanceFieldBenchmark
+{
+	private static final int SIZE = Constants.SCENE_SIZE;
+
+	public static void main(String[] args)
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		System.out.printf("Szene %dx%d, %d Iterationen%n%n", SIZE, SIZE, iterations);
+		System.out.printf("%-12s %10s %10s %10s %10s %12s %12s%n",
+			"grid", "reachable", "p50 us", "p99 us", "max us", "bytes/upd", "same-tile us");
+
+		int[][][] grids = {open(), obstacles(), river()};
+		String[] names = {"open", "obstacles", "river"};
+
+		// Erst Aufwärmen (JIT), dann messen
+		for (int[][] grid : grids)
+		{
+			run(grid, iterations / 4, null);
+		}
+		for (int i = 0; i < grids.length; i++)
+		{
+			run(grids[i], iterations, names[i]);
+		}
+	}
+
+	private static void run(int[][] grid, int iterations, String name)
+	{
+		TileDistanceField field = new TileDistanceField(SIZE);
+		int[] starts = walkableTiles(grid);
+		Random random = new Random(42);
+
+		long[] nanos = new long[iterations];
+		long allocatedBefore = allocatedBytes();
+		for (int i = 0; i < iterations; i++)
+		{
+			int start = starts[random.nextInt(starts.length)];
+			long t = System.nanoTime();
+			field.update(grid, 0, start / SIZE, start % SIZE);
+			nanos[i] = System.nanoTime() - t;
+		}
+		long allocated = allocatedBytes() - allocatedBefore;
+
+		// Gleiches Tile, gleiche Kollision: nur der Vergleich der Kollisionsdaten
+		field.update(grid, 0, starts[0] / SIZE, starts[0] % SIZE);
+		long t = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			field.update(grid, 0, starts[0] / SIZE, starts[0] % SIZE);
+		}
+		long sameTileNanos = (System.nanoTime() - t) / iterations;
+
+		if (name == null) return;
+
+		int reachable = 0;
+		for (int x = 0; x < SIZE; x++)
+		{
+			for (int y = 0; y < SIZE; y++)
+			{
+				if (field.distanceTo(x, y) != TileDistanceField.UNREACHABLE) reachable++;
+			}
+		}
+
+		Arrays.sort(nanos);
+		System.out.printf("%-12s %10d %10.1f %10.1f %10.1f %12s %12.1f%n",
+			name, reachable,
+			nanos[iterations / 2] / 1000.0,
+			nanos[(int) (iterations * 0.99)] / 1000.0,
+			nanos[iterations - 1] / 1000.0,
+			allocatedBefore < 0 ? "n/a" : String.valueOf(allocated / iterations),
+			sameTileNanos / 1000.0);
+	}
+
+	static int[][] open()
+	{
+		return new int[SIZE][SIZE];
+	}
+
+	// 30 % blockierte Tiles, zufällig verteilt
+	private static int[][] obstacles()
+	{
+		int[][] grid = new int[SIZE][SIZE];
+		Random random = new Random(7);
+		for (int x = 0; x < SIZE; x++)
+		{
+			for (int y = 0; y < SIZE; y++)
+			{
+				if (random.nextInt(10) < 3)
+				{
+					grid[x][y] = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+				}
+			}
+		}
+		return grid;
+	}
+
+	// Fluss quer durch die Szene mit einer Brücke, dazu Wände mit Richtungs-Flags
+	static int[][] river()
+	{
+		int[][] grid = new int[SIZE][SIZE];
+		for (int x = 48; x < 54; x++)
+		{
+			for (int y = 0; y < SIZE; y++)
+			{
+				if (y < 8 || y > 9)
+				{
+					grid[x][y] = CollisionDataFlag.BLOCK_MOVEMENT_FLOOR;
+				}
+			}
+		}
+		for (int wall = 20; wall < SIZE; wall += 20)
+		{
+			for (int x = 0; x < SIZE - 10; x++)
+			{
+				if (x >= 48 && x < 54) continue;
+				grid[x][wall] |= CollisionDataFlag.BLOCK_MOVEMENT_NORTH;
+				grid[x][wall + 1] |= CollisionDataFlag.BLOCK_MOVEMENT_SOUTH;
+			}
+		}
+		return grid;
+	}
+
+	private static int[] walkableTiles(int[][] grid)
+	{
+		int[] tiles = new int[SIZE * SIZE];
+		int count = 0;
+		for (int x = 0; x < SIZE; x++)
+		{
+			for (int y = 0; y < SIZE; y++)
+			{
+				if ((grid[x][y] & CollisionDataFlag.BLOCK_MOVEMENT_FULL) == 0)
+				{
+					tiles[count++] = x * SIZE + y;
+				}
+			}
+		}
+		return Arrays.copyOf(tiles, count);
+	}
+
+	private static long allocatedBytes()
+	{
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) return -1;
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported()) return -1;
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
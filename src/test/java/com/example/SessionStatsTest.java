@@ -0,0 +1,81 @@
+package com.example;
+
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Bank-Trips und gesammelte Items über Inventar-Wechsel. Der Bank-Container bleibt wie im
+ * echten Client nach dem ersten Öffnen im Cache, offen ist die Bank nur, solange ihr
+ * Widget sichtbar ist.
+ */
+public class SessionStatsTest
+{
+	private static final int WILLOW_LOGS = 1519;
+	private static final int PAY_DIRT = 12011;
+
+	private final Widget openBank = SyntheticScene.fake(Widget.class, Map.of("isHidden", false));
+	private final Widget hiddenBank = SyntheticScene.fake(Widget.class, Map.of("isHidden", true));
+	private final ItemContainer cachedBank = SyntheticScene.fake(ItemContainer.class, Map.of("getItems", new Item[0]));
+	private Widget bankWidget;
+	private SessionStats stats;
+
+	@Before
+	public void setUp()
+	{
+		Client client = SyntheticScene.fake(Client.class, Map.of(
+			"getWidget", (SyntheticScene.Answer) args -> args[0] == WidgetInfo.BANK_ITEM_CONTAINER ? bankWidget : null,
+			"getItemContainer", (SyntheticScene.Answer) args -> args[0] == InventoryID.BANK ? cachedBank : null));
+		stats = new SessionStats(client);
+	}
+
+	@Test
+	public void gatheringAfterBankVisitIsCounted()
+	{
+		inventory(WILLOW_LOGS, 0);
+		inventory(WILLOW_LOGS, 20);
+
+		bankWidget = openBank;
+		inventory(WILLOW_LOGS, 0);
+		assertEquals(1, stats.getTotal(SessionStats.BANK_TRIPS));
+
+		// Geschlossen: je nach Interface fehlt das Widget oder ist nur versteckt
+		bankWidget = hiddenBank;
+		inventory(WILLOW_LOGS, 5);
+		bankWidget = null;
+		inventory(WILLOW_LOGS, 12);
+
+		assertEquals(32, stats.getTotal(SessionStats.LOGS));
+		assertEquals(1, stats.getTotal(SessionStats.BANK_TRIPS));
+	}
+
+	@Test
+	public void emptyingWithClosedBankIsNoBankTrip()
+	{
+		bankWidget = openBank;
+		inventory(PAY_DIRT, 0);
+		bankWidget = null;
+		inventory(PAY_DIRT, 26);
+
+		// Pay-dirt in den Hopper oder Logs fallen lassen
+		inventory(PAY_DIRT, 0);
+
+		assertEquals(26, stats.getTotal(SessionStats.PAY_DIRT));
+		assertEquals(0, stats.getTotal(SessionStats.BANK_TRIPS));
+	}
+
+	private void inventory(int itemId, int quantity)
+	{
+		Item[] items = {new Item(itemId, quantity)};
+		stats.onInventoryChanged(SyntheticScene.fake(ItemContainer.class, Map.of("getItems", items)));
+	}
+}
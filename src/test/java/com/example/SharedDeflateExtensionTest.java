@@ -0,0 +1,212 @@
+package com.example;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.java_websocket.WebSocket;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.handshake.ServerHandshake;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rundreise über Loopback zwischen dem SimpleWebSocketServer mit SharedDeflateExtension und
+ * einem Client mit der PerMessageDeflateExtension von Java-WebSocket: ein geteilter,
+ * komprimierter Snapshot kommt unverändert an, komprimierte Queries werden entpackt, zu
+ * große entpackte Nachrichten schließen die Verbindung mit 1009 und Angebote mit kleinerem
+ * Server-Fenster bekommen keine Kompression.
+ */
+public class SharedDeflateExtensionTest
+{
+	private static final long TIMEOUT_SECONDS = 5;
+
+	private final Gson gson = new Gson();
+	private final List<Client> clients = new ArrayList<>();
+	private SnapshotBroadcaster broadcaster;
+	private SimpleWebSocketServer server;
+
+	@Before
+	public void startServer() throws Exception
+	{
+		broadcaster = new SnapshotBroadcaster(() -> 6);
+		// Nur "missing id or type" wird beantwortet, dafür braucht der Dispatcher weder Client noch Plugin
+		QueryDispatcher queryDispatcher = new QueryDispatcher(null, null, null, null, null, null, null);
+		List<Draft> drafts = Collections.singletonList(new Draft_6455(new SharedDeflateExtension(() -> 6)));
+		server = new SimpleWebSocketServer(new InetSocketAddress("127.0.0.1", 0), drafts, broadcaster, queryDispatcher);
+		server.start();
+		assertTrue("server did not start", server.awaitStart(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS)));
+	}
+
+	@After
+	public void stopServer() throws Exception
+	{
+		for (Client client : clients)
+		{
+			client.closeBlocking();
+		}
+		server.stop(1000);
+	}
+
+	@Test
+	public void compressedSnapshotArrivesIntact() throws Exception
+	{
+		Client client = connect(new PerMessageDeflateExtension());
+		WebSocket conn = serverConnection();
+		assertTrue("permessage-deflate not negotiated", SharedDeflateExtension.isNegotiated(conn));
+		assertTrue(((Draft_6455) client.getDraft()).getExtension() instanceof PerMessageDeflateExtension);
+
+		ByteBuffer payload = new SnapshotEncoder().encode(TransportBenchmark.syntheticSnapshot());
+		String expected = StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+		// Zweimal, damit auch der zweite Frame ohne Context Takeover entpackt wird
+		for (int i = 0; i < 2; i++)
+		{
+			broadcaster.broadcast(Collections.singletonList(conn), TransportBenchmark.syntheticSnapshot(), payload);
+			assertEquals(expected, client.next());
+		}
+	}
+
+	@Test
+	public void compressedClientQueryIsInflated() throws Exception
+	{
+		Client client = connect(new PerMessageDeflateExtension());
+		assertTrue(SharedDeflateExtension.isNegotiated(serverConnection()));
+
+		// Über der Mindestgröße, ab der PerMessageDeflateExtension komprimiert
+		for (int i = 0; i < 2; i++)
+		{
+			String id = i + "-" + String.join("", Collections.nCopies(2048, "x"));
+			JsonObject query = new JsonObject();
+			query.addProperty("id", id);
+			client.send(gson.toJson(query));
+
+			JsonObject response = gson.fromJson(client.next(), JsonObject.class)
+				.getAsJsonArray("responses").get(0).getAsJsonObject();
+			assertEquals(id, response.get("id").getAsString());
+			assertEquals("missing id or type", response.get("error").getAsString());
+		}
+	}
+
+	@Test
+	public void oversizedInflatedQueryClosesConnection() throws Exception
+	{
+		Client client = connect(new PerMessageDeflateExtension());
+		assertTrue(SharedDeflateExtension.isNegotiated(serverConnection()));
+
+		// Komprimiert nur wenige KB, entpackt knapp über der Grenze
+		client.send(String.join("", Collections.nCopies(SharedDeflateExtension.MAX_INFLATED_MESSAGE_SIZE + 1, "x")));
+		assertEquals(CloseFrame.TOOBIG, client.closeCode());
+	}
+
+	@Test
+	public void narrowServerWindowIsRejected() throws Exception
+	{
+		SharedDeflateExtension extension = new SharedDeflateExtension(() -> 6);
+		assertTrue(extension.acceptProvidedExtensionAsServer("permessage-deflate"));
+		assertTrue(extension.acceptProvidedExtensionAsServer("permessage-deflate; server_max_window_bits=15"));
+		assertFalse(extension.acceptProvidedExtensionAsServer("permessage-deflate; server_max_window_bits=10"));
+		assertFalse(extension.acceptProvidedExtensionAsServer("permessage-deflate; server_max_window_bits=\"9\""));
+		// Das zweite Angebot passt
+		assertTrue(extension.acceptProvidedExtensionAsServer(
+			"permessage-deflate; server_max_window_bits=10, permessage-deflate; client_max_window_bits"));
+
+		// Die Verbindung steht trotzdem, nur ohne Kompression
+		Client client = connect(new PerMessageDeflateExtension()
+		{
+			@Override
+			public String getProvidedExtensionAsClient()
+			{
+				return "permessage-deflate; server_max_window_bits=10";
+			}
+		});
+		WebSocket conn = serverConnection();
+		assertFalse(SharedDeflateExtension.isNegotiated(conn));
+
+		ByteBuffer payload = new SnapshotEncoder().encode(TransportBenchmark.syntheticSnapshot());
+		broadcaster.broadcast(Collections.singletonList(conn), TransportBenchmark.syntheticSnapshot(), payload);
+		assertEquals(StandardCharsets.UTF_8.decode(payload.duplicate()).toString(), client.next());
+	}
+
+	private Client connect(IExtension extension) throws Exception
+	{
+		Client client = new Client(new URI("ws://127.0.0.1:" + server.getPort()), extension);
+		clients.add(client);
+		assertTrue("client did not connect", client.connectBlocking(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		// onOpen schickt den letzten Stand, danach ist die Verbindung auch serverseitig eingetragen
+		assertEquals("{}", client.next());
+		return client;
+	}
+
+	private WebSocket serverConnection()
+	{
+		assertEquals(1, server.getConnections().size());
+		return server.getConnections().iterator().next();
+	}
+
+	private static class Client extends WebSocketClient
+	{
+		private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+		private final BlockingQueue<Integer> closeCodes = new LinkedBlockingQueue<>();
+
+		Client(URI uri, IExtension extension)
+		{
+			super(uri, new Draft_6455(extension));
+		}
+
+		String next() throws InterruptedException
+		{
+			String message = messages.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			assertNotNull("no message within " + TIMEOUT_SECONDS + " s", message);
+			return message;
+		}
+
+		int closeCode() throws InterruptedException
+		{
+			Integer code = closeCodes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			assertNotNull("not closed within " + TIMEOUT_SECONDS + " s", code);
+			return code;
+		}
+
+		@Override
+		public void onOpen(ServerHandshake handshake)
+		{
+		}
+
+		@Override
+		public void onMessage(String message)
+		{
+			messages.add(message);
+		}
+
+		@Override
+		public void onClose(int code, String reason, boolean remote)
+		{
+			closeCodes.add(code);
+		}
+
+		@Override
+		public void onError(Exception e)
+		{
+		}
+	}
+}
@@ -0,0 +1,515 @@
+package com.example;
+
+import net.runelite.api.Client;
+import net.runelite.api.CollisionData;
+import net.runelite.api.Constants;
+import net.runelite.api.GameObject;
+import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.NPC;
+import net.runelite.api.ObjectComposition;
+import net.runelite.api.Player;
+import net.runelite.api.Point;
+import net.runelite.api.Renderable;
+import net.runelite.api.Scene;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.WallObject;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.client.callback.ClientThread;
+
+import java.awt.Rectangle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Synthetische Szene für Tests und Benchmarks ohne laufenden Client. Alle RuneLite-Interfaces
+ * sind Proxies mit festen Rückgabewerten; was nicht explizit gesetzt ist, liefert 0, false,
+ * leere Collections oder einen weiteren Proxy. Rückgabewerte werden einmal geboxt und
+ * wiederverwendet, damit die Fakes selbst kaum Allokationen in Messungen einschleppen.
+ */
+class SyntheticScene
+{
+	static final int BASE_X = 3008;
+	static final int BASE_Y = 3200;
+	// Spieler in der Mitte der Szene
+	static final int PLAYER_SCENE_X = 52;
+	static final int PLAYER_SCENE_Y = 52;
+
+	private static final int[] WILLOW_IDS = {10829, 10831, 10833};
+	private static final int[] VEIN_IDS = {26661, 26662, 26663, 26664};
+	private static final int WILLOW_LOGS = 1519;
+
+	private final String name;
+	final Client client;
+	final WillowFinderPlugin plugin;
+	final WillowFinderOverlay overlay;
+	final PlayerState playerState;
+	final SessionStats sessionStats;
+
+	private final Map<String, Object> configValues;
+	private final Tile[][][] tiles = new Tile[Constants.MAX_Z][Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+	private final List<FakeObject> churning = new ArrayList<>();
+	private final Random random = new Random(42);
+	// Geboxt gehalten, damit getTickCount() beim Messen nicht jedes Mal boxt
+	private Integer tick = 0;
+
+	private SyntheticScene(String name)
+	{
+		this.name = name;
+		Scene scene = fake(Scene.class, Map.of("getTiles", tiles));
+
+		LocalPoint playerLocal = LocalPoint.fromScene(PLAYER_SCENE_X, PLAYER_SCENE_Y);
+		Map<String, Object> playerValues = new HashMap<>();
+		playerValues.put("getName", "Tester");
+		playerValues.put("getLocalLocation", playerLocal);
+		playerValues.put("getWorldLocation", new WorldPoint(BASE_X + PLAYER_SCENE_X, BASE_Y + PLAYER_SCENE_Y, 0));
+		playerValues.put("getAnimation", 867);
+		playerValues.put("getIdlePoseAnimation", 808);
+		playerValues.put("getPoseAnimation", 808);
+		playerValues.put("getInteracting", null);
+		Player player = fake(Player.class, playerValues);
+
+		Item[] items = new Item[28];
+		List<Widget> slots = new ArrayList<>();
+		for (int slot = 0; slot < items.length; slot++)
+		{
+			items[slot] = slot < 24 ? new Item(WILLOW_LOGS, 1) : new Item(-1, 0);
+			slots.add(fake(Widget.class, Map.of("getBounds", new Rectangle(560 + (slot % 4) * 42, 210 + (slot / 4) * 36, 36, 32))));
+		}
+		ItemContainer inventory = fake(ItemContainer.class, Map.of("getItems", items));
+		Widget inventoryWidget = fake(Widget.class, Map.of("getChild", (Answer) args -> slots.get((Integer) args[0])));
+		ItemComposition logs = fake(ItemComposition.class, Map.of("getName", "Willow logs"));
+		ObjectComposition object = fake(ObjectComposition.class, Map.of("getName", "Object"));
+
+		Map<String, Object> clientValues = new HashMap<>();
+		clientValues.put("getScene", scene);
+		clientValues.put("getPlane", 0);
+		clientValues.put("getBaseX", BASE_X);
+		clientValues.put("getBaseY", BASE_Y);
+		// Offenes Gelände ohne Kollision auf allen Ebenen
+		CollisionData[] collisionMaps = new CollisionData[Constants.MAX_Z];
+		for (int z = 0; z < Constants.MAX_Z; z++)
+		{
+			collisionMaps[z] = fake(CollisionData.class, Map.of("getFlags", new int[Constants.SCENE_SIZE][Constants.SCENE_SIZE]));
+		}
+		clientValues.put("getCollisionMaps", collisionMaps);
+		clientValues.put("getLocalPlayer", player);
+		clientValues.put("getGameState", GameState.LOGGED_IN);
+		clientValues.put("getTickCount", (Answer) args -> tick);
+		clientValues.put("getItemContainer", (Answer) args -> args[0] == InventoryID.INVENTORY ? inventory : null);
+		clientValues.put("getWidget", (Answer) args -> args.length == 1 && args[0] == WidgetInfo.INVENTORY ? inventoryWidget : null);
+		clientValues.put("getItemDefinition", (Answer) args -> logs);
+		clientValues.put("getObjectDefinition", (Answer) args -> object);
+		clientValues.put("getBoostedSkillLevel", 60);
+		clientValues.put("getRealSkillLevel", 60);
+		clientValues.put("getEnergy", 7500);
+		// Kamera am Südrand der Szene, Blick nach Norden, damit localToCanvas für alle Objekte projiziert
+		clientValues.put("getCameraX", playerLocal.getX());
+		clientValues.put("getCameraY", 0);
+		clientValues.put("getCameraZ", -1500);
+		clientValues.put("getCameraPitch", 256);
+		clientValues.put("getCameraYaw", 0);
+		clientValues.put("getCameraFpX", (double) playerLocal.getX());
+		clientValues.put("getCameraFpY", 0.0);
+		clientValues.put("getCameraFpZ", -1500.0);
+		clientValues.put("getCameraFpPitch", 256 * Math.PI / 1024);
+		clientValues.put("getCameraFpYaw", 0.0);
+		clientValues.put("getScale", 512);
+		clientValues.put("getViewportWidth", 765);
+		clientValues.put("getViewportHeight", 503);
+		clientValues.put("isClientThread", true);
+		client = fake(Client.class, clientValues);
+
+		configValues = new HashMap<>();
+		WillowFinderConfig config = defaultConfig(configValues);
+		plugin = new WillowFinderPlugin();
+		ClickboxCache clickboxCache = new ClickboxCache(client);
+		overlay = new WillowFinderOverlay(client, plugin, config, clickboxCache);
+		NpcIndex npcIndex = new NpcIndex();
+		GroundItemIndex groundItemIndex = new GroundItemIndex();
+		ClientThread clientThread = new ClientThread();
+
+		inject(plugin, "client", client);
+		inject(plugin, "clientThread", clientThread);
+		inject(plugin, "config", config);
+		inject(plugin, "overlay", overlay);
+		inject(plugin, "clickboxCache", clickboxCache);
+		inject(plugin, "npcIndex", npcIndex);
+		inject(plugin, "groundItemIndex", groundItemIndex);
+		inject(plugin, "lifecycleTracker", new ObjectLifecycleTracker());
+		LoadShedder loadShedder = new LoadShedder(config);
+		inject(plugin, "loadShedder", loadShedder);
+		inject(plugin, "queryDispatcher", new QueryDispatcher(client, clientThread, config, plugin, npcIndex, groundItemIndex, loadShedder));
+		playerState = new PlayerState(client);
+		inject(plugin, "playerState", playerState);
+		sessionStats = new SessionStats(client);
+		inject(plugin, "sessionStats", sessionStats);
+	}
+
+	/**
+	 * Woodcutting an der Bank: Willows, Bank Booths, volles Inventar, NPCs und Bodenitems.
+	 */
+	static SyntheticScene woodcutting()
+	{
+		SyntheticScene scene = new SyntheticScene("woodcutting");
+		scene.fillTiles();
+		for (int i = 0; i < 24; i++)
+		{
+			scene.churning.add(scene.addGameObject(WILLOW_IDS[0], 10 + (i % 6) * 14, 10 + (i / 6) * 20));
+		}
+		for (int i = 0; i < 6; i++)
+		{
+			scene.addGameObject(10355 + (i % 4), 40 + i, 70);
+		}
+		scene.addNpcs(20);
+		scene.addGroundItems(12);
+		return scene;
+	}
+
+	/**
+	 * Motherlode Mine: Veins als WallObjects, Hopper, Sack und Struts.
+	 */
+	static SyntheticScene motherlode()
+	{
+		SyntheticScene scene = new SyntheticScene("motherlode");
+		scene.fillTiles();
+		for (int i = 0; i < 60; i++)
+		{
+			scene.churning.add(scene.addWallObject(VEIN_IDS[0], 8 + (i % 12) * 8, 20 + (i / 12) * 14));
+		}
+		scene.addGameObject(26674, 45, 45);
+		scene.addGameObject(26688, 60, 45);
+		scene.addGameObject(26669, 48, 60);
+		scene.addGameObject(26670, 56, 60);
+		scene.addNpcs(8);
+		scene.addGroundItems(4);
+		return scene;
+	}
+
+	/**
+	 * Nächster Tick: ein paar Bäume/Veins wechseln den Zustand, damit der Lifecycle-Tracker Übergänge sieht.
+	 */
+	void advance()
+	{
+		tick++;
+		for (int i = 0; i < 2; i++)
+		{
+			FakeObject object = churning.get(random.nextInt(churning.size()));
+			int[] ids = object.id >= VEIN_IDS[0] ? VEIN_IDS : WILLOW_IDS;
+			object.id = ids[(indexOf(ids, object.id) + 1) % ids.length];
+		}
+	}
+
+	int getTick()
+	{
+		return tick;
+	}
+
+	String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Überschreibt einen Config-Wert, keyName wie in WillowFinderConfig.
+	 */
+	SyntheticScene config(String key, Object value)
+	{
+		configValues.put(key, value);
+		return this;
+	}
+
+	private static int indexOf(int[] ids, int id)
+	{
+		for (int i = 0; i < ids.length; i++)
+		{
+			if (ids[i] == id) return i;
+		}
+		return 0;
+	}
+
+	// Jede Tile der Ebene 0 existiert, auch ohne Objekte, wie im echten Client
+	private void fillTiles()
+	{
+		for (int x = 0; x < Constants.SCENE_SIZE; x++)
+		{
+			for (int y = 0; y < Constants.SCENE_SIZE; y++)
+			{
+				tiles[0][x][y] = new FakeTile(x, y).proxy;
+			}
+		}
+	}
+
+	private FakeObject addGameObject(int id, int sceneX, int sceneY)
+	{
+		FakeObject object = new FakeObject(id, sceneX, sceneY);
+		GameObject go = object.proxy(GameObject.class);
+		FakeTile tile = tile(sceneX, sceneY);
+		GameObject[] objects = tile.gameObjects;
+		for (int i = 0; i < objects.length; i++)
+		{
+			if (objects[i] == null)
+			{
+				objects[i] = go;
+				break;
+			}
+		}
+		return object;
+	}
+
+	private FakeObject addWallObject(int id, int sceneX, int sceneY)
+	{
+		FakeObject object = new FakeObject(id, sceneX, sceneY);
+		tile(sceneX, sceneY).wallObject = object.proxy(WallObject.class);
+		return object;
+	}
+
+	private void addNpcs(int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			int sceneX = 30 + (i * 7) % 40;
+			int sceneY = 30 + (i * 11) % 40;
+			Map<String, Object> values = new HashMap<>();
+			values.put("getId", 3000 + i % 5);
+			values.put("getName", "Npc " + i % 5);
+			values.put("getCombatLevel", 2);
+			values.put("getLocalLocation", LocalPoint.fromScene(sceneX, sceneY));
+			values.put("getWorldLocation", new WorldPoint(BASE_X + sceneX, BASE_Y + sceneY, 0));
+			plugin.onNpcSpawned(new NpcSpawned(fake(NPC.class, values)));
+		}
+	}
+
+	private void addGroundItems(int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			FakeTile tile = tile(20 + i * 5, 80);
+			TileItem item = fake(TileItem.class, Map.of("getId", 526 + i % 3, "getQuantity", 1 + i));
+			plugin.onItemSpawned(new ItemSpawned(tile.proxy, item));
+		}
+	}
+
+	private FakeTile tile(int sceneX, int sceneY)
+	{
+		return (FakeTile) handler(tiles[0][sceneX][sceneY]);
+	}
+
+	private static Object handler(Object proxy)
+	{
+		return ((FakeHandler) Proxy.getInvocationHandler(proxy)).target;
+	}
+
+	// Config mit den Default-Werten aus WillowFinderConfig, einmal ausgewertet
+	private static WillowFinderConfig defaultConfig(Map<String, Object> values)
+	{
+		WillowFinderConfig config = fake(WillowFinderConfig.class, values);
+		try
+		{
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(WillowFinderConfig.class, MethodHandles.lookup());
+			for (Method method : WillowFinderConfig.class.getDeclaredMethods())
+			{
+				if (method.isDefault() && method.getParameterCount() == 0)
+				{
+					values.put(method.getName(), lookup.unreflectSpecial(method, WillowFinderConfig.class).invoke(config));
+				}
+			}
+		}
+		catch (Throwable t)
+		{
+			throw new IllegalStateException("Config-Defaults nicht lesbar", t);
+		}
+		return config;
+	}
+
+	private static void inject(Object target, String name, Object value)
+	{
+		try
+		{
+			Field field = target.getClass().getDeclaredField(name);
+			field.setAccessible(true);
+			field.set(target, value);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Feld " + name + " nicht gefunden", e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> T fake(Class<T> type, Map<String, Object> values)
+	{
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new FakeHandler(type, values));
+	}
+
+	/**
+	 * Rückgabewert, der von den Argumenten abhängt.
+	 */
+	interface Answer
+	{
+		Object answer(Object[] args);
+	}
+
+	private static class FakeHandler implements java.lang.reflect.InvocationHandler
+	{
+		private static final Map<Class<?>, Object> ZEROS = Map.of(
+			int.class, 0, long.class, 0L, double.class, 0.0, float.class, 0f,
+			short.class, (short) 0, byte.class, (byte) 0, char.class, (char) 0, boolean.class, false);
+
+		private final Class<?> type;
+		private final Map<String, Object> values;
+		private final Map<Method, Object> defaults = new HashMap<>();
+		private Object target;
+
+		FakeHandler(Class<?> type, Map<String, Object> values)
+		{
+			this.type = type;
+			this.values = values;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args)
+		{
+			if (method.getDeclaringClass() == Object.class)
+			{
+				switch (method.getName())
+				{
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					default:
+						return "Fake" + type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+				}
+			}
+
+			String name = method.getName();
+			if (values.containsKey(name))
+			{
+				Object value = values.get(name);
+				return value instanceof Answer ? ((Answer) value).answer(args) : value;
+			}
+
+			Object value = defaults.get(method);
+			if (value == null && !defaults.containsKey(method))
+			{
+				value = defaultValue(method.getReturnType());
+				defaults.put(method, value);
+			}
+			return value;
+		}
+
+		private static Object defaultValue(Class<?> returnType)
+		{
+			if (returnType.isPrimitive())
+			{
+				return ZEROS.get(returnType);
+			}
+			if (returnType == String.class)
+			{
+				return "";
+			}
+			if (returnType == List.class || returnType == Collection.class)
+			{
+				return Collections.emptyList();
+			}
+			if (returnType == Set.class)
+			{
+				return Collections.emptySet();
+			}
+			if (returnType == Map.class)
+			{
+				return Collections.emptyMap();
+			}
+			if (returnType.isArray())
+			{
+				// Höhen- und Settings-Arrays der Szene werden von Perspective indiziert
+				Class<?> component = returnType.getComponentType();
+				if (component.isArray() && component.getComponentType().isArray())
+				{
+					return Array.newInstance(component.getComponentType().getComponentType(), Constants.MAX_Z, 256, 256);
+				}
+				return Array.newInstance(component, 0);
+			}
+			if (returnType.isInterface())
+			{
+				return fake(returnType, Collections.emptyMap());
+			}
+			return null;
+		}
+	}
+
+	private static Object proxy(Class<?> type, Object target, Map<String, Object> values)
+	{
+		FakeHandler handler = new FakeHandler(type, values);
+		handler.target = target;
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+	}
+
+	private static class FakeTile
+	{
+		final GameObject[] gameObjects = new GameObject[5];
+		WallObject wallObject;
+		final Tile proxy;
+
+		FakeTile(int sceneX, int sceneY)
+		{
+			Map<String, Object> values = new HashMap<>();
+			values.put("getGameObjects", gameObjects);
+			values.put("getWallObject", (Answer) args -> wallObject);
+			values.put("getDecorativeObject", null);
+			values.put("getGroundObject", null);
+			values.put("getPlane", 0);
+			values.put("getLocalLocation", LocalPoint.fromScene(sceneX, sceneY));
+			values.put("getWorldLocation", new WorldPoint(BASE_X + sceneX, BASE_Y + sceneY, 0));
+			values.put("getSceneLocation", new Point(sceneX, sceneY));
+			proxy = (Tile) SyntheticScene.proxy(Tile.class, this, values);
+		}
+	}
+
+	private static class FakeObject
+	{
+		// Geboxt, siehe tick
+		Integer id;
+		private final Map<String, Object> values = new HashMap<>();
+
+		FakeObject(Integer id, int sceneX, int sceneY)
+		{
+			this.id = id;
+			Renderable model = fake(Renderable.class, Collections.emptyMap());
+			values.put("getId", (Answer) args -> this.id);
+			values.put("getLocalLocation", LocalPoint.fromScene(sceneX, sceneY));
+			values.put("getWorldLocation", new WorldPoint(BASE_X + sceneX, BASE_Y + sceneY, 0));
+			values.put("getSceneMinLocation", new Point(sceneX, sceneY));
+			values.put("getPlane", 0);
+			values.put("getRenderable", model);
+			values.put("getRenderable1", model);
+			values.put("getClickbox", null);
+		}
+
+		<T> T proxy(Class<T> type)
+		{
+			return type.cast(SyntheticScene.proxy(type, this, values));
+		}
+	}
+}
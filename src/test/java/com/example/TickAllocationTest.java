@@ -0,0 +1,243 @@
+package com.example;
+
+import net.runelite.api.InventoryID;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.events.GameTick;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Allokationsbudgets pro Tick. Jede Stufe von onGameTick wird auf synthetischen Szenen
+ * (siehe SyntheticScene) nach dem Aufwärmen mehrfach ausgeführt und die auf dem Thread
+ * allozierten Bytes über den ThreadMXBean gemessen.
+ *
+ * Die Budgets sind zugesagte Obergrenzen mit etwas Luft über dem gemessenen Stand. Wird
+ * eine Stufe sparsamer, das Budget hier mitsenken, damit die Verbesserung nicht wieder verloren geht.
+ */
+public class TickAllocationTest
+{
+	private static final int WARMUP_TICKS = 2000;
+	private static final int MEASURED_TICKS = 500;
+
+	// Bytes pro Tick, gemessen auf den synthetischen Szenen etwa die Hälfte davon
+	private static final long DISTANCE_FIELD_BUDGET = 256;
+	private static final long SCAN_BUDGET = 4 * 1024;
+	private static final long LIFECYCLE_BUDGET = 2 * 1024;
+	private static final long NPCS_AND_GROUND_ITEMS_BUDGET = 6 * 1024;
+	private static final long INVENTORY_BUDGET = 6 * 1024;
+	private static final long PLAYER_STATE_BUDGET = 512;
+	// Fortschreiben der Session-Statistik soll gar nicht allozieren, die Luft ist Messrauschen
+	private static final long SESSION_STATS_BUDGET = 64;
+	private static final long OVERLAY_REBUILD_BUDGET = 1024;
+	private static final long SNAPSHOT_BUDGET = 128 * 1024;
+	private static final long ENCODE_BUDGET = 256 * 1024;
+	private static final long TICK_BUDGET = 448 * 1024;
+
+	private static com.sun.management.ThreadMXBean threads;
+
+	@BeforeClass
+	public static void checkSupport()
+	{
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	@Test
+	public void updateDistanceField()
+	{
+		assertBudget("updateDistanceField", DISTANCE_FIELD_BUDGET);
+	}
+
+	@Test
+	public void scanGameObjects()
+	{
+		assertBudget("scanGameObjects", SCAN_BUDGET);
+	}
+
+	@Test
+	public void updateLifecycle()
+	{
+		assertBudget("updateLifecycle", LIFECYCLE_BUDGET);
+	}
+
+	@Test
+	public void updateNpcsAndGroundItems()
+	{
+		assertBudget("updateNpcsAndGroundItems", NPCS_AND_GROUND_ITEMS_BUDGET);
+	}
+
+	@Test
+	public void updateInventory()
+	{
+		assertBudget("updateInventory", INVENTORY_BUDGET);
+	}
+
+	@Test
+	public void playerState()
+	{
+		for (SyntheticScene scene : scenes())
+		{
+			warmUp(scene);
+			check("playerState.update", scene, scene.playerState::update, PLAYER_STATE_BUDGET);
+		}
+	}
+
+	@Test
+	public void sessionStats()
+	{
+		for (SyntheticScene scene : scenes())
+		{
+			warmUp(scene);
+			ItemContainer inventory = scene.client.getItemContainer(InventoryID.INVENTORY);
+			check("sessionStats", scene, () ->
+			{
+				scene.sessionStats.onTick();
+				scene.sessionStats.onInventoryChanged(inventory);
+			}, SESSION_STATS_BUDGET);
+		}
+	}
+
+	@Test
+	public void overlayRebuild()
+	{
+		for (SyntheticScene scene : scenes())
+		{
+			warmUp(scene);
+			CategoryRegistry registry = scene.plugin.getCategoryRegistry();
+			check("overlay.rebuild", scene, () -> scene.overlay.rebuild(registry), OVERLAY_REBUILD_BUDGET);
+		}
+	}
+
+	@Test
+	public void buildSnapshot()
+	{
+		for (SyntheticScene scene : scenes())
+		{
+			warmUp(scene);
+			check("buildSnapshot", scene, scene.plugin::buildSnapshot, SNAPSHOT_BUDGET);
+		}
+	}
+
+	@Test
+	public void encodeSnapshot()
+	{
+		SnapshotEncoder encoder = new SnapshotEncoder();
+		for (SyntheticScene scene : scenes())
+		{
+			warmUp(scene);
+			Map<String, Object> snapshot = scene.plugin.buildSnapshot();
+			check("encode", scene, () -> encoder.encode(snapshot), ENCODE_BUDGET);
+		}
+	}
+
+	@Test
+	public void wholeTick()
+	{
+		GameTick event = new GameTick();
+		for (SyntheticScene scene : scenes())
+		{
+			warmUp(scene);
+			check("onGameTick", scene, () ->
+			{
+				scene.advance();
+				scene.plugin.onGameTick(event);
+			}, TICK_BUDGET);
+		}
+	}
+
+	private static SyntheticScene[] scenes()
+	{
+		// Ohne Lastabwurf, sonst hängt der gemessene Umfang von der Geschwindigkeit der Maschine ab
+		return new SyntheticScene[]{
+			SyntheticScene.woodcutting().config("enableLoadShedding", false),
+			SyntheticScene.motherlode().config("enableLoadShedding", false)
+		};
+	}
+
+	private static void warmUp(SyntheticScene scene)
+	{
+		GameTick event = new GameTick();
+		for (int i = 0; i < WARMUP_TICKS; i++)
+		{
+			scene.advance();
+			scene.plugin.onGameTick(event);
+		}
+
+		// Sonst misst der Test nichts: die Fakes müssen zur Perspective-Implementierung passen
+		assertTrue("Szene hat keine Objekte projiziert", scene.plugin.getTrackedObjects().size() > 0);
+	}
+
+	private static void assertBudget(String stage, long budget)
+	{
+		for (SyntheticScene scene : scenes())
+		{
+			warmUp(scene);
+			MethodHandle handle = stage(stage, scene);
+			check(stage, scene, () ->
+			{
+				try
+				{
+					handle.invokeExact(scene.plugin);
+				}
+				catch (Throwable t)
+				{
+					throw new AssertionError(t);
+				}
+			}, budget);
+		}
+	}
+
+	private static MethodHandle stage(String name, SyntheticScene scene)
+	{
+		try
+		{
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(WillowFinderPlugin.class, MethodHandles.lookup());
+			try
+			{
+				return lookup.findVirtual(WillowFinderPlugin.class, name, MethodType.methodType(void.class));
+			}
+			catch (NoSuchMethodException e)
+			{
+				// Stufen, die die Registry des Ticks übergeben bekommen
+				MethodHandle handle = lookup.findVirtual(WillowFinderPlugin.class, name,
+					MethodType.methodType(void.class, CategoryRegistry.class));
+				return MethodHandles.insertArguments(handle, 1, scene.plugin.getCategoryRegistry());
+			}
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new AssertionError("Stufe " + name + " nicht gefunden", e);
+		}
+	}
+
+	private static void check(String stage, SyntheticScene scene, Runnable body, long budget)
+	{
+		long thread = Thread.currentThread().getId();
+
+		// Kosten der Messung selbst abziehen
+		long calibrationStart = threads.getThreadAllocatedBytes(thread);
+		long overhead = threads.getThreadAllocatedBytes(thread) - calibrationStart;
+
+		long start = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < MEASURED_TICKS; i++)
+		{
+			body.run();
+		}
+		long perTick = (threads.getThreadAllocatedBytes(thread) - start - overhead) / MEASURED_TICKS;
+
+		System.out.printf("%-26s %-12s %8d bytes/tick (budget %d)%n", stage, scene.getName(), perTick, budget);
+		assertTrue(stage + " in " + scene.getName() + " alloziert " + perTick + " Bytes pro Tick, Budget ist " + budget,
+			perTick <= budget);
+	}
+}
@@ -0,0 +1,116 @@
+package com.example;
+
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.Constants;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Distanzen von TileDistanceField auf kleinen Gittern und auf dem Fluss-Gitter aus dem
+ * DistanceFieldBenchmark. Die erwarteten Werte sind von Hand nachgerechnet.
+ */
+public class TileDistanceFieldTest
+{
+	private static final int SIZE = Constants.SCENE_SIZE;
+
+	@Test
+	public void openGridIsChebyshevDistance()
+	{
+		TileDistanceField field = new TileDistanceField(SIZE);
+		field.update(DistanceFieldBenchmark.open(), 0, 10, 10);
+
+		assertEquals(0, field.distanceTo(10, 10));
+		assertEquals(5, field.distanceTo(15, 15));
+		assertEquals(7, field.distanceTo(3, 12));
+		assertEquals(TileDistanceField.UNREACHABLE, field.distanceTo(-1, 10));
+		assertEquals(TileDistanceField.UNREACHABLE, field.distanceTo(SIZE, 10));
+	}
+
+	@Test
+	public void diagonalDoesNotCutCorners()
+	{
+		int[][] grid = DistanceFieldBenchmark.open();
+		grid[11][10] = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+
+		TileDistanceField field = new TileDistanceField(SIZE);
+		field.update(grid, 0, 10, 10);
+
+		// Diagonal nach (11, 11) ginge an der Ecke von (11, 10) vorbei, also über (10, 11)
+		assertEquals(2, field.distanceTo(11, 11));
+		assertEquals(1, field.distanceTo(9, 11));
+		assertEquals(TileDistanceField.UNREACHABLE, field.distanceTo(11, 10));
+
+		// Eine Wand an der Ostseite des Ziels sperrt die Diagonale genauso
+		grid = DistanceFieldBenchmark.open();
+		grid[11][11] = CollisionDataFlag.BLOCK_MOVEMENT_WEST;
+		grid[10][11] = CollisionDataFlag.BLOCK_MOVEMENT_EAST;
+		field.update(grid, 0, 10, 10);
+		assertEquals(2, field.distanceTo(11, 11));
+	}
+
+	@Test
+	public void riverIsCrossedAtTheBridge()
+	{
+		TileDistanceField field = new TileDistanceField(SIZE);
+		field.update(DistanceFieldBenchmark.river(), 0, 40, 5);
+
+		// Über die Brücke (y 8..9), ohne Fluss wären es max(20, 5) = 20
+		assertEquals(22, field.distanceTo(60, 0));
+		assertEquals(25, field.distanceTo(60, 20));
+		assertEquals(TileDistanceField.UNREACHABLE, field.distanceTo(50, 5));
+	}
+
+	@Test
+	public void wallIsWalkedAround()
+	{
+		TileDistanceField field = new TileDistanceField(SIZE);
+		field.update(DistanceFieldBenchmark.river(), 0, 40, 5);
+
+		// Hinter der Wand bei y = 20: erst um ihr Ende bei x = 94 herum, dann zurück
+		assertEquals(55, field.distanceTo(94, 21));
+		assertEquals(89, field.distanceTo(60, 21));
+		// Zwischen Wänden und Fluss eingeschlossen
+		assertEquals(TileDistanceField.UNREACHABLE, field.distanceTo(40, 41));
+	}
+
+	@Test
+	public void objectsAreUsedFromOrthogonalNeighbours()
+	{
+		TileDistanceField field = new TileDistanceField(SIZE);
+		field.update(DistanceFieldBenchmark.open(), 0, 10, 10);
+
+		// (11, 11) liegt diagonal und zählt nicht, (11, 12) und (12, 11) sind 2 Schritte entfernt
+		assertEquals(2, field.distanceToObject(12, 12));
+		assertEquals(1, field.distanceToObject(12, 10));
+		// Das eigene Tile zählt, wenn es begehbar ist
+		assertEquals(0, field.distanceToObject(10, 10));
+
+		// (60, 20) grenzt an (60, 21), aber die Wand liegt dazwischen
+		field.update(DistanceFieldBenchmark.river(), 0, 40, 5);
+		assertEquals(88, field.distanceToObject(60, 21));
+	}
+
+	@Test
+	public void recomputesOnlyOnChange()
+	{
+		int[][] grid = DistanceFieldBenchmark.open();
+		TileDistanceField field = new TileDistanceField(SIZE);
+
+		assertTrue(field.update(grid, 0, 10, 10));
+		assertFalse(field.update(grid, 0, 10, 10));
+		assertTrue(field.update(grid, 0, 11, 10));
+		assertTrue(field.update(grid, 1, 11, 10));
+
+		grid[20][20] = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+		assertTrue(field.update(grid, 1, 11, 10));
+		assertEquals(TileDistanceField.UNREACHABLE, field.distanceTo(20, 20));
+		assertEquals(4, field.getRecomputations());
+
+		field.invalidate();
+		assertEquals(TileDistanceField.UNREACHABLE, field.distanceTo(11, 10));
+		assertTrue(field.update(grid, 1, 11, 10));
+	}
+}
@@ -0,0 +1,325 @@
+package com.example;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.framing.TextFrame;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.handshake.ServerHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vergleicht Latenz und Durchsatz von Shared-Memory-Ringpuffer und Loopback-WebSocket
+ * mit einer Snapshot-Payload realistischer Größe.
+ *
+ * Start: ./gradlew transportBenchmark [-Pmessages=20000]
+ */
+public class TransportBenchmark
+{
+	private static final long PACING_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+	public static void main(String[] args) throws Exception
+	{
+		int messages = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		ByteBuffer payload = new SnapshotEncoder().encode(syntheticSnapshot());
+		System.out.printf("Payload: %d bytes, %d messages%n%n", payload.remaining(), messages);
+		System.out.printf("%-22s %10s %10s %10s %10s %12s %10s%n",
+			"transport", "delivered", "p50 us", "p99 us", "max us", "msg/s", "MB/s");
+
+		File file = File.createTempFile("willowfinder-bench", ".ring");
+		file.deleteOnExit();
+
+		// Erst Aufwärmen (JIT), dann messen
+		sharedMemory(file, payload, messages / 4, true);
+		sharedMemory(file, payload, messages, true).print("shm (paced)");
+		sharedMemory(file, payload, messages, false).print("shm (burst)");
+
+		webSocket(payload, messages / 4, true);
+		webSocket(payload, messages, true).print("websocket (paced)");
+		webSocket(payload, messages, false).print("websocket (burst)");
+	}
+
+	private static Result sharedMemory(File file, ByteBuffer payload, int messages, boolean paced) throws Exception
+	{
+		long[] sent = new long[messages + 1];
+		long[] received = new long[messages + 1];
+
+		try (SharedMemoryTransport writer = new SharedMemoryTransport(file, 16, align(payload.remaining() + SharedMemoryTransport.SLOT_HEADER_SIZE));
+			SharedMemoryTransport.Reader reader = new SharedMemoryTransport.Reader(file))
+		{
+			SharedMemoryTransport.ringFile(file, writer.getGeneration()).deleteOnExit();
+			Thread consumer = new Thread(() ->
+			{
+				ByteBuffer dst = ByteBuffer.allocateDirect(reader.getMaxPayloadSize());
+				long next = 1;
+				while (next <= messages)
+				{
+					long latest = reader.latestSequence();
+					if (latest < next)
+					{
+						// yield statt reinem Spin, damit der Benchmark auch auf wenigen Kernen läuft
+						Thread.yield();
+						continue;
+					}
+					// Überholt -> auf den neuesten Stand springen, verlorene Nachrichten zählen nicht
+					if (latest - next >= 16)
+					{
+						next = latest;
+					}
+					dst.clear();
+					int length = reader.read(next, dst);
+					if (length >= 0)
+					{
+						received[(int) next] = System.nanoTime();
+						next++;
+					}
+					else if (length == SharedMemoryTransport.OVERWRITTEN)
+					{
+						next++;
+					}
+					else if (length == SharedMemoryTransport.RESTARTED)
+					{
+						next = 1;
+					}
+				}
+			}, "shm-reader");
+			consumer.start();
+
+			long start = System.nanoTime();
+			for (int i = 1; i <= messages; i++)
+			{
+				long now = System.nanoTime();
+				sent[i] = now;
+				writer.publish(payload);
+				if (paced)
+				{
+					pace(now);
+				}
+			}
+			consumer.join(TimeUnit.SECONDS.toMillis(30));
+			return new Result(sent, received, payload.remaining(), System.nanoTime() - start);
+		}
+	}
+
+	private static Result webSocket(ByteBuffer payload, int messages, boolean paced) throws Exception
+	{
+		long[] sent = new long[messages + 1];
+		long[] received = new long[messages + 1];
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+
+		WebSocketServer server = new WebSocketServer(new InetSocketAddress("127.0.0.1", 0))
+		{
+			@Override
+			public void onOpen(WebSocket conn, ClientHandshake handshake)
+			{
+			}
+
+			@Override
+			public void onClose(WebSocket conn, int code, String reason, boolean remote)
+			{
+			}
+
+			@Override
+			public void onMessage(WebSocket conn, String message)
+			{
+			}
+
+			@Override
+			public void onError(WebSocket conn, Exception ex)
+			{
+			}
+
+			@Override
+			public void onStart()
+			{
+				started.countDown();
+			}
+		};
+		server.setReuseAddr(true);
+		server.setTcpNoDelay(true);
+		server.start();
+		started.await(10, TimeUnit.SECONDS);
+
+		AtomicInteger count = new AtomicInteger();
+		WebSocketClient client = new WebSocketClient(new URI("ws://127.0.0.1:" + server.getPort()))
+		{
+			@Override
+			public void onOpen(ServerHandshake handshake)
+			{
+			}
+
+			@Override
+			public void onMessage(String message)
+			{
+				// TCP liefert in Reihenfolge, der Zähler ist die Sequenz
+				int seq = count.incrementAndGet();
+				received[seq] = System.nanoTime();
+				if (seq == messages)
+				{
+					done.countDown();
+				}
+			}
+
+			@Override
+			public void onClose(int code, String reason, boolean remote)
+			{
+				done.countDown();
+			}
+
+			@Override
+			public void onError(Exception ex)
+			{
+			}
+		};
+		client.setTcpNoDelay(true);
+		client.connectBlocking(10, TimeUnit.SECONDS);
+
+		WebSocket conn = server.getConnections().iterator().next();
+		long start = System.nanoTime();
+		for (int i = 1; i <= messages; i++)
+		{
+			long now = System.nanoTime();
+			sent[i] = now;
+			TextFrame frame = new TextFrame();
+			frame.setPayload(payload.duplicate());
+			frame.setFin(true);
+			conn.sendFrame(frame);
+			if (paced)
+			{
+				pace(now);
+			}
+		}
+		done.await(60, TimeUnit.SECONDS);
+		long elapsed = System.nanoTime() - start;
+
+		client.closeBlocking();
+		server.stop(1000);
+		return new Result(sent, received, payload.remaining(), elapsed);
+	}
+
+	private static void pace(long since)
+	{
+		while (System.nanoTime() - since < PACING_NANOS)
+		{
+			Thread.yield();
+		}
+	}
+
+	private static int align(int size)
+	{
+		return (size + 7) & ~7;
+	}
+
+	// Grob wie ein echter Snapshot: Spieler, Inventar, ein paar Dutzend Objekte
+	static Map<String, Object> syntheticSnapshot()
+	{
+		Map<String, Object> data = new HashMap<>();
+		Map<String, Object> player = new HashMap<>();
+		player.put("x", 3087);
+		player.put("y", 3235);
+		player.put("plane", 0);
+		player.put("health", 99);
+		player.put("activity", "woodcutting");
+		data.put("player", player);
+
+		data.put("willow_trees", objects(24, true));
+		data.put("ore_veins", objects(12, true));
+		data.put("banks", objects(6, false));
+		data.put("npcs", objects(20, false));
+
+		List<Map<String, Object>> inventory = new ArrayList<>();
+		for (int slot = 0; slot < 28; slot++)
+		{
+			Map<String, Object> item = new HashMap<>();
+			item.put("id", 1519);
+			item.put("name", "Willow logs");
+			item.put("quantity", 1);
+			item.put("slot", slot);
+			item.put("canvas_x", 580 + (slot % 4) * 42);
+			item.put("canvas_y", 250 + (slot / 4) * 36);
+			inventory.add(item);
+		}
+		data.put("inventory", inventory);
+		data.put("timestamp", System.currentTimeMillis());
+		return data;
+	}
+
+	private static List<Map<String, Object>> objects(int count, boolean withState)
+	{
+		List<Map<String, Object>> list = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			Map<String, Object> m = new HashMap<>();
+			m.put("world_x", 3080 + i);
+			m.put("world_y", 3230 + i);
+			m.put("canvas_x", 100 + i * 13);
+			m.put("canvas_y", 200 + i * 7);
+			m.put("distance", i);
+			if (withState)
+			{
+				m.put("state", "full");
+				m.put("ticks_in_state", i * 3);
+			}
+			list.add(m);
+		}
+		return list;
+	}
+
+	private static class Result
+	{
+		final long[] latencies;
+		final int delivered;
+		final int payloadSize;
+		final long elapsedNanos;
+
+		Result(long[] sent, long[] received, int payloadSize, long elapsedNanos)
+		{
+			long[] latencies = new long[sent.length];
+			int n = 0;
+			for (int i = 1; i < sent.length; i++)
+			{
+				if (received[i] != 0)
+				{
+					latencies[n++] = received[i] - sent[i];
+				}
+			}
+			this.latencies = Arrays.copyOf(latencies, n);
+			Arrays.sort(this.latencies);
+			this.delivered = n;
+			this.payloadSize = payloadSize;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		void print(String name)
+		{
+			double seconds = elapsedNanos / 1e9;
+			System.out.printf("%-22s %10d %10.1f %10.1f %10.1f %12.0f %10.1f%n",
+				name,
+				delivered,
+				percentile(0.50) / 1e3,
+				percentile(0.99) / 1e3,
+				delivered == 0 ? 0 : latencies[delivered - 1] / 1e3,
+				delivered / seconds,
+				(double) delivered * payloadSize / seconds / (1024 * 1024));
+		}
+
+		private double percentile(double p)
+		{
+			if (delivered == 0) return 0;
+			return latencies[Math.min(delivered - 1, (int) (p * delivered))];
+		}
+	}
+}
@@ -0,0 +1,244 @@
+package com.example;
+
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.handshake.ServerHandshake;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lasttest für den Fan-out: startet den SimpleWebSocketServer des Plugins mit einer
+ * synthetischen Snapshot-Quelle und verbindet N Loopback-Clients (schnell, langsam,
+ * hängend). Gemessen wird pro Client-Anzahl die Zeit, die der Tick-Thread für
+ * Encode + Broadcast braucht, die Zustell-Latenz, der Durchsatz und das Heap-Wachstum.
+ *
+ * Start: ./gradlew loadTest [-Pclients=1,10,50,100,200] [-Pticks=100] [-PtickMs=100]
+ */
+public class WebSocketLoadTest
+{
+	// Anteil der Clients, die pro Nachricht trödeln bzw. nach der ersten Nachricht hängen bleiben
+	private static final double SLOW_SHARE = 0.2;
+	private static final double STALLED_SHARE = 0.05;
+	private static final long SLOW_DELAY_MS = 20;
+
+	private static final String NANOS_KEY = "\"bench_nanos\":";
+
+	public static void main(String[] args) throws Exception
+	{
+		int[] clientCounts = Arrays.stream((args.length > 0 ? args[0] : "1,10,50,100,200").split(","))
+			.mapToInt(v -> Integer.parseInt(v.trim())).toArray();
+		int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		long tickMs = args.length > 2 ? Long.parseLong(args[2]) : 100;
+
+		System.out.printf("%d ticks every %d ms, %.0f%% slow (%d ms/msg), %.0f%% stalled clients%n%n",
+			ticks, tickMs, SLOW_SHARE * 100, SLOW_DELAY_MS, STALLED_SHARE * 100);
+		System.out.printf("%8s %10s %10s %10s %12s %12s %12s %12s%n",
+			"clients", "tick p50", "tick p99", "tick max", "deliv p50", "deliv p99", "msg/s", "heap +MB");
+
+		for (int clients : clientCounts)
+		{
+			run(clients, ticks, tickMs);
+		}
+		System.exit(0);
+	}
+
+	private static void run(int clientCount, int ticks, long tickMs) throws Exception
+	{
+		SnapshotEncoder encoder = new SnapshotEncoder();
+		SnapshotBroadcaster broadcaster = new SnapshotBroadcaster(() -> 6);
+		List<Draft> drafts = Collections.singletonList(new Draft_6455());
+		SimpleWebSocketServer server = new SimpleWebSocketServer(new InetSocketAddress("127.0.0.1", 0), drafts, broadcaster, null);
+		server.start();
+		// Warten, bis der Server gebunden hat
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (server.getPort() == 0 && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(10);
+		}
+
+		URI uri = new URI("ws://127.0.0.1:" + server.getPort());
+		List<LoadClient> clients = new ArrayList<>();
+		for (int i = 0; i < clientCount; i++)
+		{
+			Mode mode = i < clientCount * STALLED_SHARE ? Mode.STALLED
+				: i < clientCount * (STALLED_SHARE + SLOW_SHARE) ? Mode.SLOW
+				: Mode.FAST;
+			LoadClient client = new LoadClient(uri, mode, ticks);
+			client.connectBlocking(10, TimeUnit.SECONDS);
+			clients.add(client);
+		}
+
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		System.gc();
+		long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+		long[] tickNanos = new long[ticks];
+		Map<String, Object> snapshot = TransportBenchmark.syntheticSnapshot();
+		long start = System.nanoTime();
+		for (int tick = 0; tick < ticks; tick++)
+		{
+			long tickStart = System.nanoTime();
+			snapshot.put("bench_nanos", tickStart);
+			ByteBuffer payload = encoder.encode(snapshot);
+			broadcaster.broadcast(server.getConnections(), snapshot, payload);
+			tickNanos[tick] = System.nanoTime() - tickStart;
+
+			long sleep = tickMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - tickStart);
+			if (sleep > 0)
+			{
+				Thread.sleep(sleep);
+			}
+		}
+
+		// Schnelle Clients kurz austrudeln lassen
+		for (LoadClient client : clients)
+		{
+			if (client.mode == Mode.FAST)
+			{
+				client.done.await(5, TimeUnit.SECONDS);
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.gc();
+		long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+		long delivered = 0;
+		List<Long> latencies = new ArrayList<>();
+		for (LoadClient client : clients)
+		{
+			delivered += client.received.get();
+			if (client.mode != Mode.STALLED)
+			{
+				for (int i = 0; i < client.latencyCount; i++)
+				{
+					latencies.add(client.latencies[i]);
+				}
+			}
+		}
+		Collections.sort(latencies);
+		Arrays.sort(tickNanos);
+
+		System.out.printf("%8d %8.2fms %8.2fms %8.2fms %10.2fms %10.2fms %12.0f %12.1f%n",
+			clientCount,
+			tickNanos[ticks / 2] / 1e6,
+			tickNanos[Math.min(ticks - 1, (int) (ticks * 0.99))] / 1e6,
+			tickNanos[ticks - 1] / 1e6,
+			percentile(latencies, 0.50) / 1e6,
+			percentile(latencies, 0.99) / 1e6,
+			delivered / seconds,
+			(heapAfter - heapBefore) / (1024.0 * 1024.0));
+
+		for (LoadClient client : clients)
+		{
+			client.release.countDown();
+			client.close();
+		}
+		server.stop(2000);
+	}
+
+	private static double percentile(List<Long> sorted, double p)
+	{
+		if (sorted.isEmpty()) return 0;
+		return sorted.get(Math.min(sorted.size() - 1, (int) (p * sorted.size())));
+	}
+
+	private enum Mode
+	{
+		FAST, SLOW, STALLED
+	}
+
+	private static class LoadClient extends WebSocketClient
+	{
+		final Mode mode;
+		final AtomicLong received = new AtomicLong();
+		final long[] latencies;
+		volatile int latencyCount;
+		final CountDownLatch done = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		private final int expected;
+
+		LoadClient(URI uri, Mode mode, int expected)
+		{
+			super(uri);
+			this.mode = mode;
+			this.expected = expected;
+			// +1 für den Snapshot beim Verbinden
+			this.latencies = new long[expected + 1];
+		}
+
+		@Override
+		public void onOpen(ServerHandshake handshake)
+		{
+		}
+
+		@Override
+		public void onMessage(String message)
+		{
+			long now = System.nanoTime();
+			long count = received.incrementAndGet();
+
+			int index = message.indexOf(NANOS_KEY);
+			if (index >= 0 && latencyCount < latencies.length)
+			{
+				int end = index + NANOS_KEY.length();
+				int stop = end;
+				while (stop < message.length() && (Character.isDigit(message.charAt(stop)) || message.charAt(stop) == '-'))
+				{
+					stop++;
+				}
+				latencies[latencyCount] = now - Long.parseLong(message.substring(end, stop));
+				latencyCount++;
+			}
+
+			if (count >= expected)
+			{
+				done.countDown();
+			}
+
+			try
+			{
+				switch (mode)
+				{
+					case SLOW:
+						Thread.sleep(SLOW_DELAY_MS);
+						break;
+					case STALLED:
+						// Liest nicht mehr weiter -> TCP-Puffer und Sendequeue des Servers laufen voll
+						release.await();
+						break;
+					default:
+						break;
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public void onClose(int code, String reason, boolean remote)
+		{
+			done.countDown();
+		}
+
+		@Override
+		public void onError(Exception ex)
+		{
+		}
+	}
+}